@@ -24,6 +24,7 @@ import java.util.function.Function;
 import javax.persistence.EntityNotFoundException;
 
 import org.optaweb.employeerostering.domain.exception.ServerSideExceptionInfo;
+import org.optaweb.employeerostering.domain.exception.ServiceUnavailableException;
 import org.optaweb.employeerostering.util.HierarchyTree;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
@@ -73,7 +74,10 @@ public class ExceptionDataMapper {
                          EntityNotFoundException.class,
                          t -> Collections.singletonList(t.getMessage())),
         TRANSACTION_ROLLBACK("ServerSideException.rollback", HttpStatus.CONFLICT, DataIntegrityViolationException.class,
-                             t -> Collections.emptyList());
+                             t -> Collections.emptyList()),
+        SERVICE_UNAVAILABLE("ServerSideException.serviceUnavailable", HttpStatus.SERVICE_UNAVAILABLE,
+                            ServiceUnavailableException.class,
+                            t -> Collections.singletonList(t.getMessage()));
 
         private String i18nKey;
         private HttpStatus statusCode;
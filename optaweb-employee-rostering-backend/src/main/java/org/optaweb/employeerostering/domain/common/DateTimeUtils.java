@@ -34,6 +34,19 @@ public class DateTimeUtils {
                                            zoneId.getRules().getOffset(dateTime.toInstant()));
     }
 
+    /**
+     * @param dateTime never null
+     * @return the number of whole minutes since 1970-01-01T00:00Z
+     */
+    public static long toEpochMinute(OffsetDateTime dateTime) {
+        return Math.floorDiv(dateTime.toEpochSecond(), 60L);
+    }
+
+    public static boolean doTimeslotsIntersect(long startEpochMinute1, long endEpochMinute1,
+                                               long startEpochMinute2, long endEpochMinute2) {
+        return startEpochMinute1 <= endEpochMinute2 && endEpochMinute1 >= startEpochMinute2;
+    }
+
     public static boolean doTimeslotsIntersect(OffsetDateTime start1, OffsetDateTime end1, OffsetDateTime start2,
                                                OffsetDateTime end2) {
         return !start1.isAfter(end2) && !end1.isBefore(start2);
@@ -53,4 +66,15 @@ public class DateTimeUtils {
         return first.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR) == second.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR)
                 && first.get(IsoFields.WEEK_BASED_YEAR) == second.get(IsoFields.WEEK_BASED_YEAR);
     }
+
+    /**
+     * @param weekStarting never null, the first day of a week
+     * @param epochDay the day to find the week of, as returned by {@link LocalDate#toEpochDay()}
+     * @return the epoch day of the first day of the week containing epochDay
+     */
+    public static int getFirstDayOfWeek(DayOfWeek weekStarting, int epochDay) {
+        // Epoch day 0 (1970-01-01) is a Thursday
+        int daysSinceWeekStart = Math.floorMod(epochDay + DayOfWeek.THURSDAY.getValue() - weekStarting.getValue(), 7);
+        return epochDay - daysSinceWeekStart;
+    }
 }
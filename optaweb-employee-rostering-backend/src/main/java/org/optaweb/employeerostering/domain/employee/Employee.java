@@ -26,14 +26,17 @@ import javax.persistence.JoinTable;
 import javax.persistence.ManyToMany;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
+import javax.persistence.Transient;
 import javax.persistence.UniqueConstraint;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Pattern;
 import javax.validation.constraints.Size;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.optaweb.employeerostering.domain.common.AbstractPersistable;
 import org.optaweb.employeerostering.domain.contract.Contract;
 import org.optaweb.employeerostering.domain.skill.Skill;
+import org.optaweb.employeerostering.domain.spot.Spot;
 
 @Entity
 @Table(uniqueConstraints = @UniqueConstraint(columnNames = {"tenantId", "name"}))
@@ -56,6 +59,10 @@ public class Employee extends AbstractPersistable {
     )
     private Set<Skill> skillProficiencySet;
 
+    // Solver-only, indexed by Roster.indexSkills()
+    @Transient
+    private long[] skillProficiencyBitset;
+
     @SuppressWarnings("unused")
     public Employee() {
     }
@@ -75,6 +82,20 @@ public class Employee extends AbstractPersistable {
         return skillProficiencySet.containsAll(skills);
     }
 
+    public boolean hasRequiredSkills(Spot spot) {
+        long[] requiredSkillBitset = spot.getRequiredSkillBitset();
+        if (skillProficiencyBitset == null || requiredSkillBitset == null
+                || skillProficiencyBitset.length != requiredSkillBitset.length) {
+            return hasSkills(spot.getRequiredSkillSet());
+        }
+        for (int i = 0; i < requiredSkillBitset.length; i++) {
+            if ((requiredSkillBitset[i] & ~skillProficiencyBitset[i]) != 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public String toString() {
         return name;
@@ -98,6 +119,16 @@ public class Employee extends AbstractPersistable {
 
     public void setSkillProficiencySet(Set<Skill> skillProficiencySet) {
         this.skillProficiencySet = skillProficiencySet;
+        this.skillProficiencyBitset = null;
+    }
+
+    @JsonIgnore
+    public long[] getSkillProficiencyBitset() {
+        return skillProficiencyBitset;
+    }
+
+    public void setSkillProficiencyBitset(long[] skillProficiencyBitset) {
+        this.skillProficiencyBitset = skillProficiencyBitset;
     }
 
     public Contract getContract() {
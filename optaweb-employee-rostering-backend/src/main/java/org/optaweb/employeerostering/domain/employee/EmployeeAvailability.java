@@ -22,18 +22,23 @@ import java.time.ZoneId;
 
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
+import javax.persistence.Index;
 import javax.persistence.ManyToOne;
+import javax.persistence.PostLoad;
 import javax.persistence.Table;
+import javax.persistence.Transient;
 import javax.persistence.UniqueConstraint;
 import javax.validation.constraints.AssertTrue;
 import javax.validation.constraints.NotNull;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.optaweb.employeerostering.domain.common.AbstractPersistable;
+import org.optaweb.employeerostering.domain.common.DateTimeUtils;
 import org.optaweb.employeerostering.domain.employee.view.EmployeeAvailabilityView;
 
 @Entity
-@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"tenantId", "employee_id", "startDateTime", "endDateTime"}))
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"tenantId", "employee_id", "startDateTime", "endDateTime"}),
+        indexes = @Index(columnList = "tenantId, startDateTime"))
 // TODO: Single Responsibility Principle - acts as both domain entity and JSON-serializable entity
 public class EmployeeAvailability extends AbstractPersistable {
 
@@ -49,6 +54,12 @@ public class EmployeeAvailability extends AbstractPersistable {
     @NotNull
     private EmployeeAvailabilityState state;
 
+    // Solver-only fields, precomputed so the score rules compare longs instead of date times
+    @Transient
+    private long startEpochMinute;
+    @Transient
+    private long endEpochMinute;
+
     @SuppressWarnings("unused")
     public EmployeeAvailability() {
     }
@@ -59,6 +70,7 @@ public class EmployeeAvailability extends AbstractPersistable {
         this.employee = employee;
         this.startDateTime = startDateTime;
         this.endDateTime = endDateTime;
+        updateSolverFields();
     }
 
     public EmployeeAvailability(ZoneId zoneId, EmployeeAvailabilityView employeeAvailabilityView, Employee employee) {
@@ -69,6 +81,16 @@ public class EmployeeAvailability extends AbstractPersistable {
         this.endDateTime = OffsetDateTime.of(employeeAvailabilityView.getEndDateTime(),
                                              zoneId.getRules().getOffset(employeeAvailabilityView.getEndDateTime()));
         this.state = employeeAvailabilityView.getState();
+        updateSolverFields();
+    }
+
+    @PostLoad
+    private void updateSolverFields() {
+        if (startDateTime == null || endDateTime == null) {
+            return;
+        }
+        startEpochMinute = DateTimeUtils.toEpochMinute(startDateTime);
+        endEpochMinute = DateTimeUtils.toEpochMinute(endDateTime);
     }
 
     @AssertTrue
@@ -82,6 +104,16 @@ public class EmployeeAvailability extends AbstractPersistable {
         return Duration.between(startDateTime, endDateTime);
     }
 
+    @JsonIgnore
+    public long getStartEpochMinute() {
+        return startEpochMinute;
+    }
+
+    @JsonIgnore
+    public long getEndEpochMinute() {
+        return endEpochMinute;
+    }
+
     @Override
     public String toString() {
         return employee + ":" + startDateTime + "-" + endDateTime;
@@ -105,6 +137,7 @@ public class EmployeeAvailability extends AbstractPersistable {
 
     public void setStartDateTime(OffsetDateTime startDateTime) {
         this.startDateTime = startDateTime;
+        updateSolverFields();
     }
 
     public OffsetDateTime getEndDateTime() {
@@ -113,6 +146,7 @@ public class EmployeeAvailability extends AbstractPersistable {
 
     public void setEndDateTime(OffsetDateTime endDateTime) {
         this.endDateTime = endDateTime;
+        updateSolverFields();
     }
 
     public EmployeeAvailabilityState getState() {
@@ -16,7 +16,10 @@
 
 package org.optaweb.employeerostering.domain.roster;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.optaplanner.core.api.domain.constraintweight.ConstraintConfigurationProvider;
 import org.optaplanner.core.api.domain.solution.PlanningEntityCollectionProperty;
@@ -77,6 +80,36 @@ public class Roster extends AbstractPersistable {
         this.shiftList = shiftList;
     }
 
+    /**
+     * Assigns every skill of this roster a dense index and gives every employee and spot a bitset of its skills,
+     * so {@link Employee#hasRequiredSkills(Spot)} doesn't need to compare skill sets.
+     * A skill set with a skill that isn't in the skill list gets no bitset and is compared as a set instead.
+     */
+    public void indexSkills() {
+        Map<Skill, Integer> skillToIndexMap = new HashMap<>(skillList.size());
+        for (Skill skill : skillList) {
+            skillToIndexMap.putIfAbsent(skill, skillToIndexMap.size());
+        }
+        for (Employee employee : employeeList) {
+            employee.setSkillProficiencyBitset(toSkillBitset(skillToIndexMap, employee.getSkillProficiencySet()));
+        }
+        for (Spot spot : spotList) {
+            spot.setRequiredSkillBitset(toSkillBitset(skillToIndexMap, spot.getRequiredSkillSet()));
+        }
+    }
+
+    private static long[] toSkillBitset(Map<Skill, Integer> skillToIndexMap, Set<Skill> skillSet) {
+        long[] skillBitset = new long[(skillToIndexMap.size() + 63) / 64];
+        for (Skill skill : skillSet) {
+            Integer index = skillToIndexMap.get(skill);
+            if (index == null) {
+                return null;
+            }
+            skillBitset[index / 64] |= 1L << (index % 64);
+        }
+        return skillBitset;
+    }
+
     // ************************************************************************
     // Simple getters and setters
     // ************************************************************************
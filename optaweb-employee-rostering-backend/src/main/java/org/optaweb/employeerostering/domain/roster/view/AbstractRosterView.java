@@ -41,6 +41,7 @@ public class AbstractRosterView {
     @NotNull
     protected RosterState rosterState;
 
+    // Of the constraint matches that involve a shift in the date window, not of the tenant's whole roster
     private HardMediumSoftLongScore score = null;
 
     @Override
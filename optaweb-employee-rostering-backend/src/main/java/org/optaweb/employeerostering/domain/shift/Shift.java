@@ -16,22 +16,33 @@
 
 package org.optaweb.employeerostering.domain.shift;
 
+import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
 
 import javax.persistence.Entity;
+import javax.persistence.Index;
 import javax.persistence.ManyToOne;
+import javax.persistence.PostLoad;
+import javax.persistence.Table;
+import javax.persistence.Transient;
 import javax.validation.constraints.NotNull;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.optaplanner.core.api.domain.entity.PlanningEntity;
 import org.optaplanner.core.api.domain.entity.PlanningPin;
 import org.optaplanner.core.api.domain.variable.PlanningVariable;
 import org.optaweb.employeerostering.domain.common.AbstractPersistable;
+import org.optaweb.employeerostering.domain.common.DateTimeUtils;
 import org.optaweb.employeerostering.domain.employee.Employee;
 import org.optaweb.employeerostering.domain.shift.view.ShiftView;
 import org.optaweb.employeerostering.domain.spot.Spot;
 
 @Entity
+// The roster views and the scoped roster load the shifts of a tenant in a time window
+@Table(indexes = {@Index(columnList = "tenantId, startDateTime"),
+        @Index(columnList = "tenantId, spot_id, startDateTime"),
+        @Index(columnList = "tenantId, employee_id, startDateTime")})
 @PlanningEntity(movableEntitySelectionFilter = MovableShiftFilter.class)
 public class Shift extends AbstractPersistable {
 
@@ -54,6 +65,18 @@ public class Shift extends AbstractPersistable {
     @PlanningVariable(valueRangeProviderRefs = "employeeRange", nullable = true)
     private Employee employee = null;
 
+    // Solver-only fields, precomputed so the score rules compare ints and longs instead of date times
+    @Transient
+    private long startEpochMinute;
+    @Transient
+    private long endEpochMinute;
+    @Transient
+    private int startDayIndex;
+    @Transient
+    private int startMonthIndex;
+    @Transient
+    private int startYear;
+
     @SuppressWarnings("unused")
     public Shift() {
     }
@@ -69,6 +92,7 @@ public class Shift extends AbstractPersistable {
         this.endDateTime = endDateTime;
         this.spot = spot;
         this.rotationEmployee = rotationEmployee;
+        updateSolverFields();
     }
 
     public Shift(ZoneId zoneId, ShiftView shiftView, Spot spot) {
@@ -84,6 +108,20 @@ public class Shift extends AbstractPersistable {
         this.spot = spot;
         this.pinnedByUser = shiftView.isPinnedByUser();
         this.rotationEmployee = rotationEmployee;
+        updateSolverFields();
+    }
+
+    @PostLoad
+    private void updateSolverFields() {
+        if (startDateTime == null || endDateTime == null) {
+            return;
+        }
+        startEpochMinute = DateTimeUtils.toEpochMinute(startDateTime);
+        endEpochMinute = DateTimeUtils.toEpochMinute(endDateTime);
+        LocalDate startDate = startDateTime.toLocalDate();
+        startDayIndex = (int) startDate.toEpochDay();
+        startMonthIndex = startDate.getYear() * 12 + startDate.getMonthValue() - 1;
+        startYear = startDate.getYear();
     }
 
     @Override
@@ -109,6 +147,7 @@ public class Shift extends AbstractPersistable {
 
     public void setStartDateTime(OffsetDateTime startDateTime) {
         this.startDateTime = startDateTime;
+        updateSolverFields();
     }
 
     public OffsetDateTime getEndDateTime() {
@@ -117,6 +156,7 @@ public class Shift extends AbstractPersistable {
 
     public void setEndDateTime(OffsetDateTime endDateTime) {
         this.endDateTime = endDateTime;
+        updateSolverFields();
     }
 
     public boolean isPinnedByUser() {
@@ -143,6 +183,46 @@ public class Shift extends AbstractPersistable {
         this.rotationEmployee = rotationEmployee;
     }
 
+    // ************************************************************************
+    // Complex methods
+    // ************************************************************************
+
+    @JsonIgnore
+    public long getDurationInMinutes() {
+        return endEpochMinute - startEpochMinute;
+    }
+
+    @JsonIgnore
+    public long getStartEpochMinute() {
+        return startEpochMinute;
+    }
+
+    @JsonIgnore
+    public long getEndEpochMinute() {
+        return endEpochMinute;
+    }
+
+    /**
+     * @return the epoch day of the start date
+     */
+    @JsonIgnore
+    public int getStartDayIndex() {
+        return startDayIndex;
+    }
+
+    /**
+     * @return the number of months between year 0 and the month of the start date
+     */
+    @JsonIgnore
+    public int getStartMonthIndex() {
+        return startMonthIndex;
+    }
+
+    @JsonIgnore
+    public int getStartYear() {
+        return startYear;
+    }
+
     public Shift inTimeZone(ZoneId zoneId) {
         Shift out = new Shift(zoneId, new ShiftView(zoneId, this), getSpot(), getRotationEmployee());
         out.setEmployee(getEmployee());
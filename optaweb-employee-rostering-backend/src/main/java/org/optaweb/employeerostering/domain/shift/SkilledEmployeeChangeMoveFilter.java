@@ -0,0 +1,37 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaweb.employeerostering.domain.shift;
+
+import org.optaplanner.core.impl.heuristic.selector.common.decorator.SelectionFilter;
+import org.optaplanner.core.impl.heuristic.selector.move.generic.ChangeMove;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+import org.optaweb.employeerostering.domain.employee.Employee;
+import org.optaweb.employeerostering.domain.roster.Roster;
+
+/**
+ * Rejects moves that assign a shift to an employee who lacks the required skills of its spot,
+ * so local search doesn't waste its steps on moves that break the "Required skill for a shift" constraint.
+ */
+public class SkilledEmployeeChangeMoveFilter implements SelectionFilter<Roster, ChangeMove<Roster>> {
+
+    @Override
+    public boolean accept(ScoreDirector<Roster> scoreDirector, ChangeMove<Roster> move) {
+        Shift shift = (Shift) move.getEntity();
+        Employee employee = (Employee) move.getToPlanningValue();
+        return employee == null || employee.hasRequiredSkills(shift.getSpot());
+    }
+}
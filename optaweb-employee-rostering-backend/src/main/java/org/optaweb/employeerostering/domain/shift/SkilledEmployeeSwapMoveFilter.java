@@ -0,0 +1,41 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaweb.employeerostering.domain.shift;
+
+import org.optaplanner.core.impl.heuristic.selector.common.decorator.SelectionFilter;
+import org.optaplanner.core.impl.heuristic.selector.move.generic.SwapMove;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+import org.optaweb.employeerostering.domain.employee.Employee;
+import org.optaweb.employeerostering.domain.roster.Roster;
+
+/**
+ * Rejects swaps after which either shift would be assigned to an employee who lacks the required skills of its spot.
+ * @see SkilledEmployeeChangeMoveFilter
+ */
+public class SkilledEmployeeSwapMoveFilter implements SelectionFilter<Roster, SwapMove<Roster>> {
+
+    @Override
+    public boolean accept(ScoreDirector<Roster> scoreDirector, SwapMove<Roster> move) {
+        Shift leftShift = (Shift) move.getLeftEntity();
+        Shift rightShift = (Shift) move.getRightEntity();
+        return isSkilled(rightShift.getEmployee(), leftShift) && isSkilled(leftShift.getEmployee(), rightShift);
+    }
+
+    private static boolean isSkilled(Employee employee, Shift shift) {
+        return employee == null || employee.hasRequiredSkills(shift.getSpot());
+    }
+}
@@ -24,11 +24,13 @@ import javax.persistence.JoinColumn;
 import javax.persistence.JoinTable;
 import javax.persistence.ManyToMany;
 import javax.persistence.Table;
+import javax.persistence.Transient;
 import javax.persistence.UniqueConstraint;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Pattern;
 import javax.validation.constraints.Size;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.optaweb.employeerostering.domain.common.AbstractPersistable;
 import org.optaweb.employeerostering.domain.skill.Skill;
 
@@ -50,6 +52,10 @@ public class Spot extends AbstractPersistable {
     )
     private Set<Skill> requiredSkillSet;
 
+    // Solver-only, indexed by Roster.indexSkills()
+    @Transient
+    private long[] requiredSkillBitset;
+
     @SuppressWarnings("unused")
     public Spot() {
     }
@@ -83,5 +89,15 @@ public class Spot extends AbstractPersistable {
 
     public void setRequiredSkillSet(Set<Skill> requiredSkillSet) {
         this.requiredSkillSet = requiredSkillSet;
+        this.requiredSkillBitset = null;
+    }
+
+    @JsonIgnore
+    public long[] getRequiredSkillBitset() {
+        return requiredSkillBitset;
+    }
+
+    public void setRequiredSkillBitset(long[] requiredSkillBitset) {
+        this.requiredSkillBitset = requiredSkillBitset;
     }
 }
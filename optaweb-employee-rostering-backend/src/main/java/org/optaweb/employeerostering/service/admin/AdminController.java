@@ -23,6 +23,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.util.Assert;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -47,4 +48,10 @@ public class AdminController {
         adminService.resetApplication();
         return new ResponseEntity<>(HttpStatus.OK);
     }
+
+    @ApiOperation("Check if the application finished its startup work, for a readiness probe")
+    @GetMapping("/ready")
+    public ResponseEntity<Void> isReady() {
+        return new ResponseEntity<>(adminService.isReady() ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE);
+    }
 }
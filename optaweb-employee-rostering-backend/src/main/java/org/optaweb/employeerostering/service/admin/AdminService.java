@@ -24,6 +24,7 @@ import org.optaweb.employeerostering.service.roster.RosterStateRepository;
 import org.optaweb.employeerostering.service.rotation.ShiftTemplateRepository;
 import org.optaweb.employeerostering.service.shift.ShiftRepository;
 import org.optaweb.employeerostering.service.skill.SkillRepository;
+import org.optaweb.employeerostering.service.solver.WannabeSolverManager;
 import org.optaweb.employeerostering.service.spot.SpotRepository;
 import org.optaweb.employeerostering.service.tenant.RosterConstraintConfigurationRepository;
 import org.optaweb.employeerostering.service.tenant.TenantRepository;
@@ -45,6 +46,7 @@ public class AdminService {
     private TenantRepository tenantRepository;
 
     private RosterGenerator rosterGenerator;
+    private WannabeSolverManager solverManager;
 
     public AdminService(ShiftRepository shiftRepository,
                         EmployeeAvailabilityRepository employeeAvailabilityRepository,
@@ -56,7 +58,8 @@ public class AdminService {
                         RosterConstraintConfigurationRepository rosterConstraintConfigurationRepository,
                         RosterStateRepository rosterStateRepository,
                         TenantRepository tenantRepository,
-                        RosterGenerator rosterGenerator) {
+                        RosterGenerator rosterGenerator,
+                        WannabeSolverManager solverManager) {
         this.shiftRepository = shiftRepository;
         this.employeeAvailabilityRepository = employeeAvailabilityRepository;
         this.shiftTemplateRepository = shiftTemplateRepository;
@@ -68,10 +71,22 @@ public class AdminService {
         this.rosterStateRepository = rosterStateRepository;
         this.tenantRepository = tenantRepository;
         this.rosterGenerator = rosterGenerator;
+        this.solverManager = solverManager;
+    }
+
+    /**
+     * @return true once the startup work in the background, the demo data and the solver warm-up, is done
+     */
+    public boolean isReady() {
+        return rosterGenerator.isReady() && solverManager.isReady();
     }
 
     @Transactional
     public void resetApplication() {
+        // Don't delete the demo data while it's still being generated
+        rosterGenerator.awaitDemoData();
+        // Drop what the solver manager and the roster snapshots keep in memory about the deleted tenants
+        tenantRepository.findAll().forEach(tenant -> solverManager.onProblemFactChanged(tenant.getId()));
         // IMPORTANT: Delete entries that has Many-to-One relations first, otherwise we break referential integrity
         deleteAllEntities();
         rosterGenerator.setUpGeneratedData();
@@ -25,11 +25,19 @@ public class SystemPropertiesRetriever {
 
     public static final String INITIAL_DATA_PROPERTY = "optaweb.generator.initial.data";
 
+    public static final String SCORE_DIRECTOR_PROPERTY = "optaweb.solver.scoreDirector";
+
     public enum InitialData {
         EMPTY,
         DEMO_DATA // default
     }
 
+    public enum ScoreDirectorType {
+        DRL, // default
+        CONSTRAINT_STREAMS,
+        INCREMENTAL
+    }
+
     public static ZoneId determineZoneId() {
         String zoneIdProperty = System.getProperty(ZONE_ID_SYSTEM_PROPERTY);
         if (zoneIdProperty != null) {
@@ -57,6 +65,19 @@ public class SystemPropertiesRetriever {
         return InitialData.DEMO_DATA;
     }
 
+    public static ScoreDirectorType determineScoreDirectorType() {
+        String scoreDirectorProperty = System.getProperty(SCORE_DIRECTOR_PROPERTY);
+        if (scoreDirectorProperty != null) {
+            try {
+                return ScoreDirectorType.valueOf(scoreDirectorProperty);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException("The system property (" + SCORE_DIRECTOR_PROPERTY
+                                                        + ") has an invalid value (" + scoreDirectorProperty + ").", e);
+            }
+        }
+        return ScoreDirectorType.DRL;
+    }
+
     private SystemPropertiesRetriever() {
     }
 
@@ -17,12 +17,15 @@
 package org.optaweb.employeerostering.service.common;
 
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 import org.optaplanner.core.api.score.buildin.hardmediumsoftlong.HardMediumSoftLongScore;
+import org.optaplanner.core.api.score.constraint.ConstraintMatch;
 import org.optaplanner.core.api.score.constraint.Indictment;
 import org.optaplanner.core.impl.score.director.ScoreDirector;
 
@@ -49,6 +52,10 @@ public class IndictmentUtils {
     private WannabeSolverManager solverManager;
 
     private static final String CONSTRAINT_MATCH_PACKAGE = "org.optaweb.employeerostering.service.solver";
+    // Initialized first, because the map below uses it
+    private static final Map<String, ContractMinutesViolation.Type> CONSTRAINT_NAME_TO_CONTRACT_MINUTES_TYPE_MAP =
+            createConstraintNameToContractMinutesTypeMap();
+    private static final Map<String, ConstraintType> CONSTRAINT_NAME_TO_TYPE_MAP = createConstraintNameToTypeMap();
 
     public IndictmentUtils(WannabeSolverManager solverManager) {
         this.solverManager = solverManager;
@@ -63,129 +70,157 @@ public class IndictmentUtils {
     }
 
     public ShiftView getShiftViewWithIndictment(ZoneId zoneId, Shift shift, Indictment indictment) {
-        return new ShiftView(zoneId, shift,
-                             getRequiredSkillViolationList(indictment),
-                             getUnavailableEmployeeViolationList(indictment),
-                             getShiftEmployeeConflictList(indictment),
-                             getDesiredTimeslotForEmployeeRewardList(indictment),
-                             getUndesiredTimeslotForEmployeePenaltyList(indictment),
-                             getRotationViolationPenaltyList(indictment),
-                             getUnassignedShiftPenaltyList(indictment),
-                             getContractMinutesViolationList(indictment),
-                             (indictment != null) ?
-                                     (HardMediumSoftLongScore) indictment.getScore() : HardMediumSoftLongScore.ZERO);
-    }
-
-    public List<RequiredSkillViolation> getRequiredSkillViolationList(Indictment indictment) {
         if (indictment == null) {
-            return Collections.emptyList();
+            return new ShiftView(zoneId, shift,
+                                 Collections.emptyList(), Collections.emptyList(), Collections.emptyList(),
+                                 Collections.emptyList(), Collections.emptyList(), Collections.emptyList(),
+                                 Collections.emptyList(), Collections.emptyList(), HardMediumSoftLongScore.ZERO);
         }
-        return indictment.getConstraintMatchSet().stream()
-                .filter(cm -> cm.getConstraintPackage().equals(CONSTRAINT_MATCH_PACKAGE) &&
-                        cm.getConstraintName().equals("Required skill for a shift"))
-                .map(cm -> new RequiredSkillViolation((Shift) cm.getJustificationList().get(0),
-                                                      (HardMediumSoftLongScore) cm.getScore()))
-                .collect(Collectors.toList());
-    }
-
-    public List<UnavailableEmployeeViolation> getUnavailableEmployeeViolationList(Indictment indictment) {
-        if (indictment == null) {
-            return Collections.emptyList();
+        List<RequiredSkillViolation> requiredSkillViolationList = null;
+        List<UnavailableEmployeeViolation> unavailableEmployeeViolationList = null;
+        List<ShiftEmployeeConflict> shiftEmployeeConflictList = null;
+        List<DesiredTimeslotForEmployeeReward> desiredTimeslotForEmployeeRewardList = null;
+        List<UndesiredTimeslotForEmployeePenalty> undesiredTimeslotForEmployeePenaltyList = null;
+        List<RotationViolationPenalty> rotationViolationPenaltyList = null;
+        List<UnassignedShiftPenalty> unassignedShiftPenaltyList = null;
+        List<ContractMinutesViolation> contractMinutesViolationList = null;
+        // A single pass, because a view builds a shift view for each of its (possibly thousands of) shifts
+        for (ConstraintMatch cm : indictment.getConstraintMatchSet()) {
+            if (!cm.getConstraintPackage().equals(CONSTRAINT_MATCH_PACKAGE)) {
+                continue;
+            }
+            ConstraintType constraintType = CONSTRAINT_NAME_TO_TYPE_MAP.get(cm.getConstraintName());
+            if (constraintType == null) {
+                continue;
+            }
+            List<Object> justificationList = cm.getJustificationList();
+            HardMediumSoftLongScore score = (HardMediumSoftLongScore) cm.getScore();
+            switch (constraintType) {
+                case REQUIRED_SKILL:
+                    requiredSkillViolationList = add(requiredSkillViolationList, new RequiredSkillViolation(
+                            (Shift) justificationList.get(0), score));
+                    break;
+                case UNAVAILABLE_TIME_SLOT:
+                    unavailableEmployeeViolationList = add(unavailableEmployeeViolationList,
+                                                           new UnavailableEmployeeViolation(
+                                                                   getJustification(cm, Shift.class),
+                                                                   getJustification(cm, EmployeeAvailability.class),
+                                                                   score));
+                    break;
+                case SHIFT_EMPLOYEE_CONFLICT:
+                    shiftEmployeeConflictList = add(shiftEmployeeConflictList, new ShiftEmployeeConflict(
+                            (Shift) justificationList.get(0), (Shift) justificationList.get(1), score));
+                    break;
+                case DESIRED_TIME_SLOT:
+                    desiredTimeslotForEmployeeRewardList = add(desiredTimeslotForEmployeeRewardList,
+                                                               new DesiredTimeslotForEmployeeReward(
+                                                                       getJustification(cm, Shift.class),
+                                                                       getJustification(cm,
+                                                                                        EmployeeAvailability.class),
+                                                                       score));
+                    break;
+                case UNDESIRED_TIME_SLOT:
+                    undesiredTimeslotForEmployeePenaltyList = add(undesiredTimeslotForEmployeePenaltyList,
+                                                                  new UndesiredTimeslotForEmployeePenalty(
+                                                                          getJustification(cm, Shift.class),
+                                                                          getJustification(cm,
+                                                                                           EmployeeAvailability.class),
+                                                                          score));
+                    break;
+                case NOT_ROTATION_EMPLOYEE:
+                    rotationViolationPenaltyList = add(rotationViolationPenaltyList, new RotationViolationPenalty(
+                            (Shift) justificationList.get(0), score));
+                    break;
+                case UNASSIGNED_SHIFT:
+                    unassignedShiftPenaltyList = add(unassignedShiftPenaltyList, new UnassignedShiftPenalty(
+                            (Shift) justificationList.get(0), score));
+                    break;
+                case CONTRACT_MINUTES:
+                    // getJustificationList() was not consistent; sometimes employee was first,
+                    // other times minutes worked was first
+                    contractMinutesViolationList = add(contractMinutesViolationList, new ContractMinutesViolation(
+                            getJustification(cm, Employee.class),
+                            CONSTRAINT_NAME_TO_CONTRACT_MINUTES_TYPE_MAP.get(cm.getConstraintName()),
+                            getJustification(cm, Long.class), score));
+                    break;
+                default:
+                    throw new IllegalStateException("The constraintType (" + constraintType
+                                                            + ") is not implemented.");
+            }
         }
-        return indictment.getConstraintMatchSet().stream()
-                .filter(cm -> cm.getConstraintPackage().equals(CONSTRAINT_MATCH_PACKAGE) &&
-                        cm.getConstraintName().equals("Unavailable time slot for an employee"))
-                .map(cm -> new UnavailableEmployeeViolation((Shift) cm.getJustificationList().get(0),
-                                                            (EmployeeAvailability) cm.getJustificationList().get(1),
-                                                            (HardMediumSoftLongScore) cm.getScore()))
-                .collect(Collectors.toList());
+        return new ShiftView(zoneId, shift,
+                             orEmpty(requiredSkillViolationList),
+                             orEmpty(unavailableEmployeeViolationList),
+                             orEmpty(shiftEmployeeConflictList),
+                             orEmpty(desiredTimeslotForEmployeeRewardList),
+                             orEmpty(undesiredTimeslotForEmployeePenaltyList),
+                             orEmpty(rotationViolationPenaltyList),
+                             orEmpty(unassignedShiftPenaltyList),
+                             orEmpty(contractMinutesViolationList),
+                             (HardMediumSoftLongScore) indictment.getScore());
     }
 
-    public List<DesiredTimeslotForEmployeeReward> getDesiredTimeslotForEmployeeRewardList(Indictment indictment) {
-        if (indictment == null) {
-            return Collections.emptyList();
-        }
-        return indictment.getConstraintMatchSet().stream()
-                .filter(cm -> cm.getConstraintPackage().equals(CONSTRAINT_MATCH_PACKAGE) &&
-                        cm.getConstraintName().equals("Desired time slot for an employee"))
-                .map(cm -> new DesiredTimeslotForEmployeeReward((Shift) cm.getJustificationList().get(0),
-                                                                (EmployeeAvailability) cm.getJustificationList().get(1),
-                                                                (HardMediumSoftLongScore) cm.getScore()))
-                .collect(Collectors.toList());
+    private static <T> List<T> add(List<T> list, T element) {
+        List<T> nonNullList = (list == null) ? new ArrayList<>(2) : list;
+        nonNullList.add(element);
+        return nonNullList;
     }
 
-    public List<UndesiredTimeslotForEmployeePenalty> getUndesiredTimeslotForEmployeePenaltyList(Indictment indictment) {
-        if (indictment == null) {
-            return Collections.emptyList();
-        }
-        return indictment.getConstraintMatchSet().stream()
-                .filter(cm -> cm.getConstraintPackage().equals(CONSTRAINT_MATCH_PACKAGE) &&
-                        cm.getConstraintName().equals("Undesired time slot for an employee"))
-                .map(cm -> new UndesiredTimeslotForEmployeePenalty((Shift) cm.getJustificationList().get(0),
-                                                                   (EmployeeAvailability) cm.getJustificationList()
-                                                                           .get(1),
-                                                                   (HardMediumSoftLongScore) cm.getScore()))
-                .collect(Collectors.toList());
+    private static <T> List<T> orEmpty(List<T> list) {
+        return (list == null) ? Collections.emptyList() : list;
     }
 
-    public List<ShiftEmployeeConflict> getShiftEmployeeConflictList(Indictment indictment) {
-        if (indictment == null) {
-            return Collections.emptyList();
+    // The availability rules also justify their match with the index they found the availability with,
+    // so the justifications are found by type instead of by position
+    private static <T> T getJustification(ConstraintMatch constraintMatch, Class<T> justificationClass) {
+        for (Object justification : constraintMatch.getJustificationList()) {
+            if (justificationClass.isInstance(justification)) {
+                return justificationClass.cast(justification);
+            }
         }
-        return indictment.getConstraintMatchSet().stream()
-                .filter(cm -> cm.getConstraintPackage().equals(CONSTRAINT_MATCH_PACKAGE) &&
-                        cm.getConstraintName().equals("At most one shift assignment per day per employee") ||
-                        cm.getConstraintName().equals("No 2 shifts within 10 hours from each other"))
-                .map(cm -> new ShiftEmployeeConflict((Shift) cm.getJustificationList().get(0),
-                                                     (Shift) cm.getJustificationList().get(1),
-                                                     (HardMediumSoftLongScore) cm.getScore()))
-                .collect(Collectors.toList());
+        throw new IllegalStateException("The constraintMatch (" + constraintMatch
+                                                + ") has no justification of type ("
+                                                + justificationClass.getSimpleName() + ").");
     }
 
-    public List<RotationViolationPenalty> getRotationViolationPenaltyList(Indictment indictment) {
-        if (indictment == null) {
-            return Collections.emptyList();
+    private static Map<String, ConstraintType> createConstraintNameToTypeMap() {
+        Map<String, ConstraintType> constraintNameToTypeMap = new HashMap<>();
+        constraintNameToTypeMap.put("Required skill for a shift", ConstraintType.REQUIRED_SKILL);
+        constraintNameToTypeMap.put("Unavailable time slot for an employee", ConstraintType.UNAVAILABLE_TIME_SLOT);
+        constraintNameToTypeMap.put("At most one shift assignment per day per employee",
+                                    ConstraintType.SHIFT_EMPLOYEE_CONFLICT);
+        constraintNameToTypeMap.put("No 2 shifts within 10 hours from each other",
+                                    ConstraintType.SHIFT_EMPLOYEE_CONFLICT);
+        constraintNameToTypeMap.put("Desired time slot for an employee", ConstraintType.DESIRED_TIME_SLOT);
+        constraintNameToTypeMap.put("Undesired time slot for an employee", ConstraintType.UNDESIRED_TIME_SLOT);
+        constraintNameToTypeMap.put("Employee is not rotation employee", ConstraintType.NOT_ROTATION_EMPLOYEE);
+        constraintNameToTypeMap.put("Assign every shift", ConstraintType.UNASSIGNED_SHIFT);
+        for (String constraintName : CONSTRAINT_NAME_TO_CONTRACT_MINUTES_TYPE_MAP.keySet()) {
+            constraintNameToTypeMap.put(constraintName, ConstraintType.CONTRACT_MINUTES);
         }
-        return indictment.getConstraintMatchSet().stream()
-                .filter(cm -> cm.getConstraintPackage().equals(CONSTRAINT_MATCH_PACKAGE) &&
-                        cm.getConstraintName().equals("Employee is not rotation employee"))
-                .map(cm -> new RotationViolationPenalty((Shift) cm.getJustificationList().get(0),
-                                                        (HardMediumSoftLongScore) cm.getScore()))
-                .collect(Collectors.toList());
+        return Collections.unmodifiableMap(constraintNameToTypeMap);
     }
 
-    public List<UnassignedShiftPenalty> getUnassignedShiftPenaltyList(Indictment indictment) {
-        if (indictment == null) {
-            return Collections.emptyList();
+    private static Map<String, ContractMinutesViolation.Type> createConstraintNameToContractMinutesTypeMap() {
+        Map<String, ContractMinutesViolation.Type> constraintNameToTypeMap = new HashMap<>();
+        for (String constraintName : Arrays.asList("Daily minutes must not exceed contract maximum",
+                                                   "Weekly minutes must not exceed contract maximum",
+                                                   "Monthly minutes must not exceed contract maximum",
+                                                   "Yearly minutes must not exceed contract maximum")) {
+            constraintNameToTypeMap.put(constraintName, ContractMinutesViolation.Type.getTypeForViolation(
+                    constraintName));
         }
-        return indictment.getConstraintMatchSet().stream()
-                .filter(cm -> cm.getConstraintPackage().equals(CONSTRAINT_MATCH_PACKAGE) &&
-                        cm.getConstraintName().equals("Assign every shift"))
-                .map(cm -> new UnassignedShiftPenalty((Shift) cm.getJustificationList().get(0),
-                                                      (HardMediumSoftLongScore) cm.getScore()))
-                .collect(Collectors.toList());
+        return Collections.unmodifiableMap(constraintNameToTypeMap);
     }
 
-    public List<ContractMinutesViolation> getContractMinutesViolationList(Indictment indictment) {
-        if (indictment == null) {
-            return Collections.emptyList();
-        }
-        // getJustificationList() was not consistent; sometimes employee was first, other times minutes worked was first
-        return indictment.getConstraintMatchSet().stream()
-                .filter(cm -> cm.getConstraintPackage().equals(CONSTRAINT_MATCH_PACKAGE) &&
-                        (cm.getConstraintName().equals("Daily minutes must not exceed contract maximum") ||
-                                cm.getConstraintName().equals("Weekly minutes must not exceed contract maximum") ||
-                                cm.getConstraintName().equals("Monthly minutes must not exceed contract maximum") ||
-                                cm.getConstraintName().equals("Yearly minutes must not exceed contract maximum")))
-                .map(cm -> new ContractMinutesViolation((Employee) cm.getJustificationList()
-                        .stream()
-                        .filter(o -> o instanceof Employee)
-                        .findFirst().get(), ContractMinutesViolation.Type.getTypeForViolation(cm.getConstraintName()),
-                                                        (Long) cm.getJustificationList()
-                                                                .stream()
-                                                                .filter(o -> o instanceof Long)
-                                                                .findFirst().get(),
-                                                        (HardMediumSoftLongScore) cm.getScore()))
-                .collect(Collectors.toList());
+    private enum ConstraintType {
+        REQUIRED_SKILL,
+        UNAVAILABLE_TIME_SLOT,
+        SHIFT_EMPLOYEE_CONFLICT,
+        DESIRED_TIME_SLOT,
+        UNDESIRED_TIME_SLOT,
+        NOT_ROTATION_EMPLOYEE,
+        UNASSIGNED_SHIFT,
+        CONTRACT_MINUTES
     }
 }
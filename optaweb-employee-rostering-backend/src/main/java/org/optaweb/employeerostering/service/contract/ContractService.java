@@ -24,6 +24,7 @@ import javax.persistence.EntityNotFoundException;
 import org.optaweb.employeerostering.domain.contract.Contract;
 import org.optaweb.employeerostering.domain.contract.view.ContractView;
 import org.optaweb.employeerostering.service.common.AbstractRestService;
+import org.optaweb.employeerostering.service.solver.WannabeSolverManager;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -32,8 +33,11 @@ public class ContractService extends AbstractRestService {
 
     private final ContractRepository contractRepository;
 
-    public ContractService(ContractRepository contractRepository) {
+    private final WannabeSolverManager solverManager;
+
+    public ContractService(ContractRepository contractRepository, WannabeSolverManager solverManager) {
         this.contractRepository = contractRepository;
+        this.solverManager = solverManager;
     }
 
     public Contract convertFromView(Integer tenantId, ContractView contractView) {
@@ -72,6 +76,7 @@ public class ContractService extends AbstractRestService {
         }
 
         validateTenantIdParameter(tenantId, contractOptional.get());
+        solverManager.onProblemFactChanged(tenantId);
         contractRepository.deleteById(id);
         return true;
     }
@@ -79,6 +84,7 @@ public class ContractService extends AbstractRestService {
     @Transactional
     public Contract createContract(Integer tenantId, ContractView contractView) {
         Contract contract = convertFromView(tenantId, contractView);
+        solverManager.onProblemFactChanged(tenantId);
         return contractRepository.save(contract);
     }
 
@@ -101,6 +107,7 @@ public class ContractService extends AbstractRestService {
         oldContract.setMaximumMinutesPerWeek(newContract.getMaximumMinutesPerWeek());
         oldContract.setMaximumMinutesPerMonth(newContract.getMaximumMinutesPerMonth());
         oldContract.setMaximumMinutesPerYear(newContract.getMaximumMinutesPerYear());
+        solverManager.onProblemFactChanged(tenantId);
         return contractRepository.save(oldContract);
     }
 }
@@ -29,6 +29,11 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface EmployeeRepository extends JpaRepository<Employee, Long> {
 
+    @Query("select e from Employee e " +
+            "where e.tenantId = :tenantId " +
+            "order by LOWER(e.name)")
+    List<Employee> findAllByTenantId(@Param("tenantId") Integer tenantId);
+
     @Query("select e from Employee e " +
             "where e.tenantId = :tenantId " +
             "order by LOWER(e.name)")
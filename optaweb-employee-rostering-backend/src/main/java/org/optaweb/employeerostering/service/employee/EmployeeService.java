@@ -30,7 +30,7 @@ import org.optaweb.employeerostering.domain.roster.RosterState;
 import org.optaweb.employeerostering.domain.skill.Skill;
 import org.optaweb.employeerostering.service.common.AbstractRestService;
 import org.optaweb.employeerostering.service.roster.RosterStateRepository;
-import org.springframework.data.domain.PageRequest;
+import org.optaweb.employeerostering.service.solver.WannabeSolverManager;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -43,12 +43,16 @@ public class EmployeeService extends AbstractRestService {
 
     private final RosterStateRepository rosterStateRepository;
 
+    private final WannabeSolverManager solverManager;
+
     public EmployeeService(EmployeeRepository employeeRepository,
                            EmployeeAvailabilityRepository employeeAvailabilityRepository,
-                           RosterStateRepository rosterStateRepository) {
+                           RosterStateRepository rosterStateRepository,
+                           WannabeSolverManager solverManager) {
         this.employeeRepository = employeeRepository;
         this.employeeAvailabilityRepository = employeeAvailabilityRepository;
         this.rosterStateRepository = rosterStateRepository;
+        this.solverManager = solverManager;
     }
 
     // ************************************************************************
@@ -66,7 +70,7 @@ public class EmployeeService extends AbstractRestService {
 
     @Transactional
     public List<Employee> getEmployeeList(Integer tenantId) {
-        return employeeRepository.findAllByTenantId(tenantId, PageRequest.of(0, Integer.MAX_VALUE));
+        return employeeRepository.findAllByTenantId(tenantId);
     }
 
     @Transactional
@@ -88,6 +92,7 @@ public class EmployeeService extends AbstractRestService {
         }
 
         validateTenantIdParameter(tenantId, employeeOptional.get());
+        solverManager.onProblemFactChanged(tenantId);
         employeeRepository.deleteById(id);
         return true;
     }
@@ -97,6 +102,7 @@ public class EmployeeService extends AbstractRestService {
         Employee employee = convertFromEmployeeView(tenantId, employeeView);
         validateTenantIdParameter(tenantId, employee);
 
+        solverManager.onProblemFactChanged(tenantId);
         return employeeRepository.save(employee);
     }
 
@@ -117,6 +123,7 @@ public class EmployeeService extends AbstractRestService {
         oldEmployee.setName(newEmployee.getName());
         oldEmployee.setSkillProficiencySet(newEmployee.getSkillProficiencySet());
         oldEmployee.setContract(newEmployee.getContract());
+        solverManager.onProblemFactChanged(tenantId);
         return employeeRepository.save(oldEmployee);
     }
 
@@ -180,6 +187,7 @@ public class EmployeeService extends AbstractRestService {
         EmployeeAvailability employeeAvailability = convertFromEmployeeAvailabilityView(tenantId,
                                                                                         employeeAvailabilityView);
         employeeAvailabilityRepository.save(employeeAvailability);
+        solverManager.onEmployeeAvailabilityChanged(tenantId, employeeAvailability.getId(), employeeAvailability);
 
         RosterState rosterState = rosterStateRepository
                 .findByTenantId(tenantId)
@@ -214,6 +222,8 @@ public class EmployeeService extends AbstractRestService {
         // Flush to increase version number before we duplicate it to EmployeeAvailableView
         EmployeeAvailability updatedEmployeeAvailability =
                 employeeAvailabilityRepository.saveAndFlush(oldEmployeeAvailability);
+        solverManager.onEmployeeAvailabilityChanged(tenantId, updatedEmployeeAvailability.getId(),
+                                                    updatedEmployeeAvailability);
 
         RosterState rosterState = rosterStateRepository
                 .findByTenantId(tenantId)
@@ -232,6 +242,7 @@ public class EmployeeService extends AbstractRestService {
 
         validateTenantIdParameter(tenantId, employeeAvailabilityOptional.get());
         employeeAvailabilityRepository.deleteById(id);
+        solverManager.onEmployeeAvailabilityChanged(tenantId, id, null);
         return true;
     }
 }
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaweb.employeerostering.service.roster;
+
+import org.optaplanner.core.api.score.buildin.hardmediumsoftlong.HardMediumSoftLongScore;
+import org.optaplanner.core.api.solver.ProblemFactChange;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+import org.optaweb.employeerostering.domain.roster.Roster;
+
+/**
+ * A tenant's roster kept in a long-lived score director between requests,
+ * so a change only recalculates the constraints it affects.
+ * Thread-safe.
+ */
+class LiveRoster implements AutoCloseable {
+
+    private final ScoreDirector<Roster> scoreDirector;
+    // Null if the roster changed since the last snapshot
+    private RosterSnapshot rosterSnapshot = null;
+    private boolean closed = false;
+
+    /**
+     * @param scoreDirector never null, closed by {@link #close()}
+     * @param roster never null, becomes the working solution of the score director
+     */
+    LiveRoster(ScoreDirector<Roster> scoreDirector, Roster roster) {
+        this.scoreDirector = scoreDirector;
+        scoreDirector.setWorkingSolution(roster);
+    }
+
+    /**
+     * @return null if this live roster is closed
+     */
+    synchronized RosterSnapshot getRosterSnapshot() {
+        if (rosterSnapshot == null && !closed) {
+            HardMediumSoftLongScore score = (HardMediumSoftLongScore) scoreDirector.calculateScore();
+            rosterSnapshot = new RosterSnapshot(score, scoreDirector.getIndictmentMap());
+        }
+        return rosterSnapshot;
+    }
+
+    /**
+     * Does nothing if this live roster is closed.
+     * @param problemFactChange never null
+     */
+    synchronized void applyChange(ProblemFactChange<Roster> problemFactChange) {
+        if (closed) {
+            return;
+        }
+        problemFactChange.doChange(scoreDirector);
+        rosterSnapshot = null;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            rosterSnapshot = null;
+            scoreDirector.close();
+        }
+    }
+}
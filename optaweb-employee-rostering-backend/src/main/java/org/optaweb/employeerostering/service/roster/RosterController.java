@@ -29,6 +29,7 @@ import org.optaweb.employeerostering.domain.roster.RosterState;
 import org.optaweb.employeerostering.domain.roster.view.AvailabilityRosterView;
 import org.optaweb.employeerostering.domain.roster.view.ShiftRosterView;
 import org.optaweb.employeerostering.domain.spot.Spot;
+import org.optaweb.employeerostering.service.solver.SolverStatus;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.Assert;
@@ -160,6 +161,12 @@ public class RosterController {
         rosterService.terminateRosterEarly(tenantId);
     }
 
+    @ApiOperation("Get the solver status of the roster: scheduled, solving or terminated")
+    @GetMapping("/solverStatus")
+    public ResponseEntity<SolverStatus> getSolverStatus(@PathVariable @Min(0) Integer tenantId) {
+        return new ResponseEntity<>(rosterService.getSolverStatus(tenantId), HttpStatus.OK);
+    }
+
     // ************************************************************************
     // Publish
     // ************************************************************************
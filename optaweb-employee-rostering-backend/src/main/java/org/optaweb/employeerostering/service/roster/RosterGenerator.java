@@ -31,6 +31,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
@@ -53,10 +55,15 @@ import org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration
 import org.optaweb.employeerostering.domain.tenant.Tenant;
 import org.optaweb.employeerostering.service.admin.SystemPropertiesRetriever;
 import org.optaweb.employeerostering.service.common.generator.StringDataGenerator;
+import org.optaweb.employeerostering.service.solver.WannabeSolverManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import static java.util.stream.Collectors.groupingBy;
 import static java.util.stream.Collectors.toList;
@@ -380,11 +387,22 @@ public class RosterGenerator implements ApplicationRunner {
                 : startDayOffset < 2 ? 2 : startDayOffset < 4 ? 1 : startDayOffset < 7 ? 2 : -1;
     });
 
+    protected final transient Logger logger = LoggerFactory.getLogger(getClass());
+
     private Random random;
 
     @PersistenceContext
     private EntityManager entityManager;
 
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private WannabeSolverManager solverManager;
+
+    // Completes once the demo data is generated (or found to exist already), see run()
+    private final CompletableFuture<Void> demoDataFuture = new CompletableFuture<>();
+
     @SuppressWarnings("unused")
     public RosterGenerator() {
     }
@@ -399,9 +417,45 @@ public class RosterGenerator implements ApplicationRunner {
     }
 
     @Override
-    @Transactional
     public void run(ApplicationArguments args) {
-        checkForExistingData();
+        // Generate in the background, so the application serves requests right away
+        Thread demoDataThread = new Thread(() -> {
+            try {
+                List<Integer> tenantIdList = transactionTemplate.execute(status -> {
+                    checkForExistingData();
+                    return entityManager.createQuery("select t.id from Tenant t", Integer.class).getResultList();
+                });
+                // A view or solve request might have loaded a tenant while its data was still being inserted
+                tenantIdList.forEach(solverManager::onProblemFactChanged);
+                demoDataFuture.complete(null);
+            } catch (Throwable e) {
+                logger.error("Error generating the demo data.", e);
+                demoDataFuture.completeExceptionally(e);
+            }
+        }, "optaweb-demo-data");
+        demoDataThread.setDaemon(true);
+        demoDataThread.start();
+    }
+
+    /**
+     * @return true if the demo data generation at startup is done
+     */
+    public boolean isReady() {
+        return demoDataFuture.isDone();
+    }
+
+    /**
+     * Waits until the demo data generation at startup is done, whether it succeeded or not.
+     */
+    public void awaitDemoData() {
+        try {
+            demoDataFuture.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while the demo data is generated.", e);
+        } catch (ExecutionException e) {
+            // Already logged, a failed generation doesn't block what comes after it
+        }
     }
 
     @Transactional
@@ -473,8 +527,10 @@ public class RosterGenerator implements ApplicationRunner {
         List<EmployeeAvailability> employeeAvailabilityList = createEmployeeAvailabilityList(
                 generatorType, tenantId, rosterConstraintConfiguration, rosterState, employeeList, shiftList);
 
-        return new Roster((long) tenantId, tenantId, rosterConstraintConfiguration, skillList, spotList, employeeList,
-                          employeeAvailabilityList, rosterState, shiftList);
+        Roster roster = new Roster((long) tenantId, tenantId, rosterConstraintConfiguration, skillList, spotList,
+                                   employeeList, employeeAvailabilityList, rosterState, shiftList);
+        roster.indexSkills();
+        return roster;
     }
 
     @Transactional
@@ -16,11 +16,20 @@
 
 package org.optaweb.employeerostering.service.roster;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.OffsetDateTime;
 import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -32,9 +41,12 @@ import javax.persistence.EntityNotFoundException;
 
 import org.optaplanner.core.api.score.buildin.hardmediumsoftlong.HardMediumSoftLongScore;
 import org.optaplanner.core.api.score.constraint.Indictment;
+import org.optaplanner.core.api.solver.ProblemFactChange;
 import org.optaplanner.core.impl.score.director.ScoreDirector;
+import org.optaweb.employeerostering.domain.contract.Contract;
 import org.optaweb.employeerostering.domain.employee.Employee;
 import org.optaweb.employeerostering.domain.employee.EmployeeAvailability;
+import org.optaweb.employeerostering.domain.employee.EmployeeAvailabilityState;
 import org.optaweb.employeerostering.domain.employee.view.EmployeeAvailabilityView;
 import org.optaweb.employeerostering.domain.roster.Pagination;
 import org.optaweb.employeerostering.domain.roster.PublishResult;
@@ -42,31 +54,40 @@ import org.optaweb.employeerostering.domain.roster.Roster;
 import org.optaweb.employeerostering.domain.roster.RosterState;
 import org.optaweb.employeerostering.domain.roster.view.AvailabilityRosterView;
 import org.optaweb.employeerostering.domain.roster.view.ShiftRosterView;
-import org.optaweb.employeerostering.domain.rotation.ShiftTemplate;
 import org.optaweb.employeerostering.domain.shift.Shift;
 import org.optaweb.employeerostering.domain.shift.view.ShiftView;
 import org.optaweb.employeerostering.domain.skill.Skill;
 import org.optaweb.employeerostering.domain.spot.Spot;
+import org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration;
 import org.optaweb.employeerostering.service.common.AbstractRestService;
 import org.optaweb.employeerostering.service.common.IndictmentUtils;
 import org.optaweb.employeerostering.service.employee.EmployeeAvailabilityRepository;
 import org.optaweb.employeerostering.service.employee.EmployeeRepository;
+import org.optaweb.employeerostering.service.rotation.RotationExpander;
 import org.optaweb.employeerostering.service.rotation.ShiftTemplateRepository;
 import org.optaweb.employeerostering.service.shift.ShiftRepository;
 import org.optaweb.employeerostering.service.skill.SkillRepository;
+import org.optaweb.employeerostering.service.solver.SolverManagerProperties;
+import org.optaweb.employeerostering.service.solver.SolverStatus;
 import org.optaweb.employeerostering.service.solver.WannabeSolverManager;
 import org.optaweb.employeerostering.service.spot.SpotRepository;
 import org.optaweb.employeerostering.service.tenant.RosterConstraintConfigurationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-
-import static java.util.stream.Collectors.groupingBy;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Service
 public class RosterService extends AbstractRestService {
 
+    protected final transient Logger logger = LoggerFactory.getLogger(getClass());
+
     private RosterStateRepository rosterStateRepository;
     private SkillRepository skillRepository;
     private SpotRepository spotRepository;
@@ -78,6 +99,19 @@ public class RosterService extends AbstractRestService {
 
     private WannabeSolverManager solverManager;
     private IndictmentUtils indictmentUtils;
+    private JdbcTemplate jdbcTemplate;
+    private SolverManagerProperties solverManagerProperties;
+
+    // How many shift or availability rows the JDBC driver fetches per round trip when a roster is loaded
+    private static final int LOAD_FETCH_SIZE = 1000;
+
+    // Guards the maps below
+    private final Object liveRosterLock = new Object();
+    // The live roster per tenant, least recently used first, see getRosterSnapshot()
+    private final Map<Integer, LiveRoster> tenantIdToLiveRosterMap = new LinkedHashMap<>(16, 0.75f, true);
+    // Tell if a roster that was being loaded is still up to date
+    private final Map<Integer, Long> tenantIdToRosterChangeCountMap = new HashMap<>();
+    private final Map<Integer, Integer> tenantIdToUncommittedRosterChangeCountMap = new HashMap<>();
 
     public RosterService(RosterStateRepository rosterStateRepository, SkillRepository skillRepository,
                          SpotRepository spotRepository, EmployeeRepository employeeRepository,
@@ -85,7 +119,8 @@ public class RosterService extends AbstractRestService {
                          ShiftRepository shiftRepository,
                          RosterConstraintConfigurationRepository rosterConstraintConfigurationRepository,
                          ShiftTemplateRepository shiftTemplateRepository,
-                         WannabeSolverManager solverManager, IndictmentUtils indictmentUtils) {
+                         WannabeSolverManager solverManager, IndictmentUtils indictmentUtils,
+                         JdbcTemplate jdbcTemplate, SolverManagerProperties solverManagerProperties) {
         this.rosterStateRepository = rosterStateRepository;
         this.skillRepository = skillRepository;
         this.spotRepository = spotRepository;
@@ -96,6 +131,8 @@ public class RosterService extends AbstractRestService {
         this.shiftTemplateRepository = shiftTemplateRepository;
         this.solverManager = solverManager;
         this.indictmentUtils = indictmentUtils;
+        this.jdbcTemplate = jdbcTemplate;
+        this.solverManagerProperties = solverManagerProperties;
     }
 
     // ************************************************************************
@@ -161,25 +198,21 @@ public class RosterService extends AbstractRestService {
                                                List<Spot> spotList) {
         ShiftRosterView shiftRosterView = new ShiftRosterView(tenantId, startDate, endDate);
         shiftRosterView.setSpotList(spotList);
-        List<Employee> employeeList = employeeRepository.findAllByTenantId(tenantId, PageRequest.of(0,
-                                                                                                    Integer.MAX_VALUE));
+        List<Employee> employeeList = employeeRepository.findAllByTenantId(tenantId);
         shiftRosterView.setEmployeeList(employeeList);
 
         Set<Spot> spotSet = new HashSet<>(spotList);
         ZoneId timeZone = getRosterState(tenantId).getTimeZone();
+        OffsetDateTime startDateTime = startDate.atStartOfDay(timeZone).toOffsetDateTime();
+        OffsetDateTime endDateTime = endDate.atStartOfDay(timeZone).toOffsetDateTime();
 
-        List<Shift> shiftList = shiftRepository.filterWithSpots(tenantId, spotSet,
-                                                                startDate.atStartOfDay(timeZone).toOffsetDateTime(),
-                                                                endDate.atStartOfDay(timeZone).toOffsetDateTime());
+        List<Shift> shiftList = shiftRepository.filterWithSpots(tenantId, spotSet, startDateTime, endDateTime);
 
         Map<Long, List<ShiftView>> spotIdToShiftViewListMap = new LinkedHashMap<>(spotList.size());
         // TODO FIXME race condition solverManager's bestSolution might differ from the one we just fetched, so the
         //  score might be inaccurate
-        Roster roster = solverManager.getRoster(tenantId);
-        if (roster == null) {
-            roster = buildRoster(tenantId);
-        }
-        Map<Object, Indictment> indictmentMap = indictmentUtils.getIndictmentMapForRoster(roster);
+        RosterSnapshot rosterSnapshot = getCurrentRosterSnapshot(tenantId, startDate, endDate);
+        Map<Object, Indictment> indictmentMap = rosterSnapshot.getIndictmentMap();
 
         for (Shift shift : shiftList) {
             Indictment indictment = indictmentMap.get(shift);
@@ -188,7 +221,7 @@ public class RosterService extends AbstractRestService {
         }
         shiftRosterView.setSpotIdToShiftViewListMap(spotIdToShiftViewListMap);
 
-        shiftRosterView.setScore(roster == null ? null : roster.getScore());
+        shiftRosterView.setScore(rosterSnapshot.getWindowScore(startDateTime, endDateTime));
         shiftRosterView.setRosterState(getRosterState(tenantId));
 
         return shiftRosterView;
@@ -248,7 +281,7 @@ public class RosterService extends AbstractRestService {
                                                              LocalDate endDate,
                                                              List<Employee> employeeList) {
         AvailabilityRosterView availabilityRosterView = new AvailabilityRosterView(tenantId, startDate, endDate);
-        List<Spot> spotList = spotRepository.findAllByTenantId(tenantId, PageRequest.of(0, Integer.MAX_VALUE));
+        List<Spot> spotList = spotRepository.findAllByTenantId(tenantId);
         availabilityRosterView.setSpotList(spotList);
 
         availabilityRosterView.setEmployeeList(employeeList);
@@ -257,16 +290,13 @@ public class RosterService extends AbstractRestService {
         List<ShiftView> unassignedShiftViewList = new ArrayList<>();
         Set<Employee> employeeSet = new HashSet<>(employeeList);
         ZoneId timeZone = getRosterState(tenantId).getTimeZone();
+        OffsetDateTime startDateTime = startDate.atStartOfDay(timeZone).toOffsetDateTime();
+        OffsetDateTime endDateTime = endDate.atStartOfDay(timeZone).toOffsetDateTime();
 
-        List<Shift> shiftList = shiftRepository.filterWithEmployees(tenantId, employeeSet,
-                                                                    startDate.atStartOfDay(timeZone).toOffsetDateTime(),
-                                                                    endDate.atStartOfDay(timeZone).toOffsetDateTime());
+        List<Shift> shiftList = shiftRepository.filterWithEmployees(tenantId, employeeSet, startDateTime, endDateTime);
 
-        Roster roster = solverManager.getRoster(tenantId);
-        if (roster == null) {
-            roster = buildRoster(tenantId);
-        }
-        Map<Object, Indictment> indictmentMap = indictmentUtils.getIndictmentMapForRoster(roster);
+        RosterSnapshot rosterSnapshot = getCurrentRosterSnapshot(tenantId, startDate, endDate);
+        Map<Object, Indictment> indictmentMap = rosterSnapshot.getIndictmentMap();
 
         for (Shift shift : shiftList) {
             Indictment indictment = indictmentMap.get(shift);
@@ -283,9 +313,7 @@ public class RosterService extends AbstractRestService {
         Map<Long, List<EmployeeAvailabilityView>> employeeIdToAvailabilityViewListMap = new LinkedHashMap<>(
                 employeeList.size());
         List<EmployeeAvailability> employeeAvailabilityList =
-                employeeAvailabilityRepository.filterWithEmployee(tenantId, employeeSet,
-                                                                  startDate.atStartOfDay(timeZone).toOffsetDateTime(),
-                                                                  endDate.atStartOfDay(timeZone).toOffsetDateTime());
+                employeeAvailabilityRepository.filterWithEmployee(tenantId, employeeSet, startDateTime, endDateTime);
 
         for (EmployeeAvailability employeeAvailability : employeeAvailabilityList) {
             employeeIdToAvailabilityViewListMap.computeIfAbsent(employeeAvailability.getEmployee().getId(),
@@ -296,7 +324,7 @@ public class RosterService extends AbstractRestService {
 
         // TODO FIXME race condition solverManager's bestSolution might differ from the one we just fetched so the
         //  score might be inaccurate.
-        availabilityRosterView.setScore(roster.getScore());
+        availabilityRosterView.setScore(rosterSnapshot.getWindowScore(startDateTime, endDateTime));
         availabilityRosterView.setRosterState(getRosterState(tenantId));
         return availabilityRosterView;
     }
@@ -307,54 +335,380 @@ public class RosterService extends AbstractRestService {
 
     @Transactional
     public Roster buildRoster(Integer tenantId) {
+        Roster roster = loadRoster(tenantId);
+        // Dispose the score director's working memory instead of leaving it to the garbage collector
+        try (ScoreDirector<Roster> scoreDirector = solverManager.getScoreDirector()) {
+            scoreDirector.setWorkingSolution(roster);
+            roster.setScore((HardMediumSoftLongScore) scoreDirector.calculateScore());
+        }
+        return roster;
+    }
+
+    /**
+     * The score and indictments of the tenant's roster.
+     * The roster is kept in a live score director, which the entity change hooks update incrementally,
+     * so this only recalculates what changed since the last call.
+     * @param tenantId never null
+     * @return never null, must not be modified
+     */
+    @Transactional
+    public RosterSnapshot getRosterSnapshot(Integer tenantId) {
+        RosterSnapshot liveRosterSnapshot = getLiveRosterSnapshot(tenantId);
+        if (liveRosterSnapshot != null) {
+            return liveRosterSnapshot;
+        }
+        long rosterChangeCount;
+        synchronized (liveRosterLock) {
+            rosterChangeCount = tenantIdToRosterChangeCountMap.getOrDefault(tenantId, 0L);
+        }
+        LiveRoster liveRoster = new LiveRoster(solverManager.getScoreDirector(), loadRoster(tenantId));
+        RosterSnapshot rosterSnapshot = liveRoster.getRosterSnapshot();
+        synchronized (liveRosterLock) {
+            // Don't keep a roster that misses a change, or that includes a change that might still roll back
+            if (rosterChangeCount == tenantIdToRosterChangeCountMap.getOrDefault(tenantId, 0L)
+                    && !tenantIdToUncommittedRosterChangeCountMap.containsKey(tenantId)
+                    && solverManagerProperties.getMaximumLiveRosterCount() > 0) {
+                // Another request might have loaded the roster at the same time
+                closeLiveRoster(tenantId);
+                tenantIdToLiveRosterMap.put(tenantId, liveRoster);
+                // Evict the least recently used live rosters
+                Iterator<LiveRoster> liveRosterIterator = tenantIdToLiveRosterMap.values().iterator();
+                while (tenantIdToLiveRosterMap.size() > solverManagerProperties.getMaximumLiveRosterCount()) {
+                    liveRosterIterator.next().close();
+                    liveRosterIterator.remove();
+                }
+                return rosterSnapshot;
+            }
+        }
+        liveRoster.close();
+        return rosterSnapshot;
+    }
+
+    /**
+     * Call this when a shift or an employee availability of the tenant is created, updated or deleted.
+     * @param tenantId never null
+     * @param problemFactChange never null, applied to the tenant's live roster, if any
+     */
+    public void updateRosterSnapshot(Integer tenantId, ProblemFactChange<Roster> problemFactChange) {
+        recordRosterChange(tenantId, problemFactChange);
+    }
+
+    /**
+     * Call this when any other entity of the tenant is created, updated or deleted,
+     * so the tenant's roster is reloaded from the database by the next {@link #getRosterSnapshot(Integer)}.
+     * @param tenantId never null
+     */
+    public void invalidateRosterSnapshot(Integer tenantId) {
+        recordRosterChange(tenantId, null);
+    }
+
+    /**
+     * Inside a transaction, a change is applied to the live roster right away, so the same transaction reads it.
+     * If that transaction rolls back, the live roster is discarded.
+     * @param problemFactChange null to discard the live roster
+     */
+    private void recordRosterChange(Integer tenantId, ProblemFactChange<Roster> problemFactChange) {
+        synchronized (liveRosterLock) {
+            if (problemFactChange == null) {
+                closeLiveRoster(tenantId);
+            } else {
+                LiveRoster liveRoster = tenantIdToLiveRosterMap.get(tenantId);
+                if (liveRoster != null) {
+                    liveRoster.applyChange(problemFactChange);
+                }
+            }
+            tenantIdToRosterChangeCountMap.merge(tenantId, 1L, Long::sum);
+            if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+                return;
+            }
+            tenantIdToUncommittedRosterChangeCountMap.merge(tenantId, 1, Integer::sum);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                synchronized (liveRosterLock) {
+                    tenantIdToUncommittedRosterChangeCountMap.computeIfPresent(
+                            tenantId, (key, count) -> (count > 1) ? count - 1 : null);
+                    if (status != STATUS_COMMITTED) {
+                        // The live roster has a change that the database doesn't
+                        closeLiveRoster(tenantId);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Only looks up the live roster under the global lock, so rescoring one tenant doesn't block the others.
+     * @return null if the tenant has no live roster, or if it was closed meanwhile
+     */
+    private RosterSnapshot getLiveRosterSnapshot(Integer tenantId) {
+        LiveRoster liveRoster;
+        synchronized (liveRosterLock) {
+            liveRoster = tenantIdToLiveRosterMap.get(tenantId);
+        }
+        return (liveRoster == null) ? null : liveRoster.getRosterSnapshot();
+    }
+
+    private void closeLiveRoster(Integer tenantId) {
+        LiveRoster liveRoster = tenantIdToLiveRosterMap.remove(tenantId);
+        if (liveRoster != null) {
+            liveRoster.close();
+        }
+    }
+
+    /**
+     * The indictments of the shifts in a date window, without loading the tenant's whole history.
+     * Only the shifts and employee availabilities in the window and its margin are scored,
+     * so only {@link RosterSnapshot#getWindowScore(OffsetDateTime, OffsetDateTime)} is meaningful,
+     * not {@link RosterSnapshot#getScore()}.
+     * If an employee has a yearly contract maximum, the margin would be whole years,
+     * so this returns {@link #getRosterSnapshot(Integer)} instead.
+     * @param tenantId never null
+     * @param startDate never null, inclusive
+     * @param endDate never null, exclusive
+     * @return never null, must not be modified
+     */
+    @Transactional
+    public RosterSnapshot getRosterSnapshot(Integer tenantId, LocalDate startDate, LocalDate endDate) {
+        List<Employee> employeeList = findAllEmployees(tenantId);
+        if (hasContractMaximum(employeeList, Contract::getMaximumMinutesPerYear)) {
+            return getRosterSnapshot(tenantId);
+        }
+        Roster roster = loadRoster(tenantId, employeeList, startDate, endDate);
+        try (ScoreDirector<Roster> scoreDirector = solverManager.getScoreDirector()) {
+            scoreDirector.setWorkingSolution(roster);
+            HardMediumSoftLongScore score = (HardMediumSoftLongScore) scoreDirector.calculateScore();
+            return new RosterSnapshot(score, scoreDirector.getIndictmentMap());
+        }
+    }
+
+    private RosterSnapshot getCurrentRosterSnapshot(Integer tenantId, LocalDate startDate, LocalDate endDate) {
+        // The best roster of a solving tenant changes all the time, so it isn't kept live
+        Roster bestRoster = solverManager.getRoster(tenantId);
+        if (bestRoster != null) {
+            return new RosterSnapshot(bestRoster.getScore(), indictmentUtils.getIndictmentMapForRoster(bestRoster));
+        }
+        RosterSnapshot liveRosterSnapshot = getLiveRosterSnapshot(tenantId);
+        if (liveRosterSnapshot != null) {
+            return liveRosterSnapshot;
+        }
+        // Don't load the tenant's whole history just to show a few weeks of it
+        return getRosterSnapshot(tenantId, startDate, endDate);
+    }
+
+    private Roster loadRoster(Integer tenantId) {
+        return createRoster(tenantId, findAllEmployees(tenantId), null, null);
+    }
+
+    /**
+     * Loads the shifts and employee availabilities that can affect the indictments of the shifts in the date window:
+     * those within 2 days of it, for the one shift per day and 10 hours rest constraints,
+     * and those in the same week or month, for the contract maximums that any employee has.
+     * This assumes that no shift lasts longer than a day and that no employee has a yearly contract maximum.
+     * @param startDate never null, inclusive
+     * @param endDate never null, exclusive
+     */
+    private Roster loadRoster(Integer tenantId, List<Employee> employeeList, LocalDate startDate, LocalDate endDate) {
         ZoneId zoneId = getRosterState(tenantId).getTimeZone();
+        DayOfWeek weekStartDay = getRosterConstraintConfiguration(tenantId).getWeekStartDay();
+
+        LocalDate fromDate = startDate.minusDays(2);
+        // The day after the last day to load
+        LocalDate toDate = endDate.plusDays(2);
+        // Each adjustment only widens the window, so a later one keeps the periods of an earlier one
+        if (hasContractMaximum(employeeList, Contract::getMaximumMinutesPerWeek)) {
+            fromDate = fromDate.with(TemporalAdjusters.previousOrSame(weekStartDay));
+            toDate = toDate.minusDays(1).with(TemporalAdjusters.next(weekStartDay));
+        }
+        if (hasContractMaximum(employeeList, Contract::getMaximumMinutesPerMonth)) {
+            fromDate = fromDate.with(TemporalAdjusters.firstDayOfMonth());
+            toDate = toDate.minusDays(1).with(TemporalAdjusters.firstDayOfNextMonth());
+        }
+
+        OffsetDateTime fromDateTime = fromDate.atStartOfDay(zoneId).toOffsetDateTime();
+        OffsetDateTime toDateTime = toDate.atStartOfDay(zoneId).toOffsetDateTime();
+        return createRoster(tenantId, employeeList, fromDateTime, toDateTime);
+    }
+
+    /**
+     * Reads the shifts and employee availabilities with plain JDBC, in batches of {@value #LOAD_FETCH_SIZE} rows,
+     * straight into solver domain objects in the tenant's time zone.
+     * So a big tenant isn't held in memory twice, once as managed entities and once as their copies.
+     * @param fromDateTime null to load them all
+     * @param toDateTime null to load them all
+     */
+    private Roster createRoster(Integer tenantId, List<Employee> employeeList,
+                                OffsetDateTime fromDateTime, OffsetDateTime toDateTime) {
+        RosterState rosterState = getRosterState(tenantId);
+        ZoneId zoneId = rosterState.getTimeZone();
         List<Skill> skillList = skillRepository.findAllByTenantId(tenantId);
-        List<Spot> spotList = spotRepository.findAllByTenantId(tenantId, PageRequest.of(0, Integer.MAX_VALUE));
-        List<Employee> employeeList = employeeRepository.findAllByTenantId(tenantId, PageRequest.of(0,
-                                                                                                    Integer.MAX_VALUE));
-        List<EmployeeAvailability> employeeAvailabilityList = employeeAvailabilityRepository.findAllByTenantId(tenantId)
-                .stream()
-                .map(ea -> ea.inTimeZone(zoneId))
-                .collect(Collectors.toList());
-        List<Shift> shiftList = shiftRepository.findAllByTenantId(tenantId)
-                .stream()
-                .map(s -> s.inTimeZone(zoneId))
-                .collect(Collectors.toList());
+        List<Spot> spotList = spotRepository.findAllByTenantId(tenantId);
+        Map<Long, Spot> spotIdMap = spotList.stream()
+                .collect(Collectors.toMap(Spot::getId, Function.identity()));
+        Map<Long, Employee> employeeIdMap = employeeList.stream()
+                .collect(Collectors.toMap(Employee::getId, Function.identity()));
+        // Unlike a JPA query, a JDBC query doesn't flush the changes of the persistence context first
+        shiftRepository.flush();
+
+        List<EmployeeAvailability> employeeAvailabilityList = new ArrayList<>();
+        queryTimeWindow("select id, version, employee_id, start_date_time, end_date_time, state" +
+                                " from employee_availability where tenant_id = ?",
+                        " order by id",
+                        tenantId, fromDateTime, toDateTime, resultSet -> {
+                    EmployeeAvailability employeeAvailability = new EmployeeAvailability(
+                            tenantId, getProblemFact(employeeIdMap, resultSet, "employee_id"),
+                            getDateTime(resultSet, "start_date_time", zoneId),
+                            getDateTime(resultSet, "end_date_time", zoneId));
+                    employeeAvailability.setId(resultSet.getLong("id"));
+                    employeeAvailability.setVersion(resultSet.getLong("version"));
+                    // Persisted as an ordinal, because the field has no @Enumerated
+                    employeeAvailability.setState(EmployeeAvailabilityState.values()[resultSet.getInt("state")]);
+                    employeeAvailabilityList.add(employeeAvailability);
+                });
+        List<Shift> shiftList = new ArrayList<>();
+        queryTimeWindow("select id, version, spot_id, rotation_employee_id, employee_id," +
+                                " start_date_time, end_date_time, pinned_by_user" +
+                                " from shift where tenant_id = ?",
+                        " order by start_date_time, id",
+                        tenantId, fromDateTime, toDateTime, resultSet -> {
+                    Shift shift = new Shift(tenantId, getProblemFact(spotIdMap, resultSet, "spot_id"),
+                                            getDateTime(resultSet, "start_date_time", zoneId),
+                                            getDateTime(resultSet, "end_date_time", zoneId),
+                                            getProblemFact(employeeIdMap, resultSet, "rotation_employee_id"));
+                    shift.setId(resultSet.getLong("id"));
+                    shift.setVersion(resultSet.getLong("version"));
+                    shift.setPinnedByUser(resultSet.getBoolean("pinned_by_user"));
+                    shift.setEmployee(getProblemFact(employeeIdMap, resultSet, "employee_id"));
+                    shiftList.add(shift);
+                });
+
+        Roster roster = new Roster((long) tenantId, tenantId, getRosterConstraintConfiguration(tenantId),
+                                   skillList, spotList, employeeList, employeeAvailabilityList,
+                                   rosterState, shiftList);
+        roster.indexSkills();
+        return roster;
+    }
 
-        Roster roster = new Roster((long) tenantId, tenantId, rosterConstraintConfigurationRepository
-                .findByTenantId(tenantId)
+    private void queryTimeWindow(String sql, String orderBySql, Integer tenantId,
+                                 OffsetDateTime fromDateTime, OffsetDateTime toDateTime,
+                                 RowCallbackHandler rowCallbackHandler) {
+        String timeWindowSql = (fromDateTime == null) ? sql + orderBySql
+                : sql + " and end_date_time >= ? and start_date_time < ?" + orderBySql;
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(timeWindowSql);
+            statement.setFetchSize(LOAD_FETCH_SIZE);
+            statement.setInt(1, tenantId);
+            if (fromDateTime != null) {
+                statement.setTimestamp(2, Timestamp.from(fromDateTime.toInstant()));
+                statement.setTimestamp(3, Timestamp.from(toDateTime.toInstant()));
+            }
+            return statement;
+        }, rowCallbackHandler);
+    }
+
+    private static OffsetDateTime getDateTime(ResultSet resultSet, String columnName, ZoneId zoneId)
+            throws SQLException {
+        return resultSet.getTimestamp(columnName).toInstant().atZone(zoneId).toOffsetDateTime();
+    }
+
+    /**
+     * @return null if the column is null
+     */
+    private static <T> T getProblemFact(Map<Long, T> idMap, ResultSet resultSet, String columnName)
+            throws SQLException {
+        long id = resultSet.getLong(columnName);
+        if (resultSet.wasNull()) {
+            return null;
+        }
+        T problemFact = idMap.get(id);
+        if (problemFact == null) {
+            throw new IllegalStateException("The " + columnName + " (" + id + ") refers to no problem fact of the"
+                                                    + " same tenant.");
+        }
+        return problemFact;
+    }
+
+    private List<Employee> findAllEmployees(Integer tenantId) {
+        return employeeRepository.findAllByTenantId(tenantId);
+    }
+
+    private RosterConstraintConfiguration getRosterConstraintConfiguration(Integer tenantId) {
+        return rosterConstraintConfigurationRepository.findByTenantId(tenantId)
                 .orElseThrow(() -> new EntityNotFoundException(
-                        "No RosterConstraintConfiguration entity found with tenantId(" + tenantId + ").")),
-                                   skillList, spotList, employeeList, employeeAvailabilityList,
-                                   getRosterState(tenantId), shiftList);
+                        "No RosterConstraintConfiguration entity found with tenantId(" + tenantId + ")."));
+    }
 
-        ScoreDirector<Roster> scoreDirector = solverManager.getScoreDirector();
-        scoreDirector.setWorkingSolution(roster);
-        roster.setScore((HardMediumSoftLongScore) scoreDirector.calculateScore());
-        return roster;
+    private static boolean hasContractMaximum(List<Employee> employeeList,
+                                              Function<Contract, Integer> maximumMinutesMapping) {
+        return employeeList.stream()
+                .anyMatch(employee -> maximumMinutesMapping.apply(employee.getContract()) != null);
     }
 
+    /**
+     * Brings a roster that was built earlier up to date with the shifts in the database,
+     * without reloading its skills, spots, employees and availabilities.
+     * @param roster never null, built by {@link #buildRoster(Integer)} (or solved since), modified by this method
+     * @param changedShiftIdSet never null, the ids of the shifts created, updated or deleted since
+     * @return null if a changed shift refers to a spot or employee that isn't in the roster,
+     * in which case the roster must be rebuilt
+     */
     @Transactional
-    public void updateShiftsOfRoster(Roster newRoster) {
-        Integer tenantId = newRoster.getTenantId();
-        // TODO HACK avoids optimistic locking exception while solve(), but it circumvents optimistic locking completely
-        Map<Long, Employee> employeeIdMap = employeeRepository.findAllByTenantId(tenantId,
-                                                                                 PageRequest.of(0, Integer.MAX_VALUE))
-                .stream()
+    public Roster refreshShiftsOfRoster(Roster roster, Set<Long> changedShiftIdSet) {
+        Integer tenantId = roster.getTenantId();
+        ZoneId zoneId = roster.getRosterState().getTimeZone();
+        Map<Long, Spot> spotIdMap = roster.getSpotList().stream()
+                .collect(Collectors.toMap(Spot::getId, Function.identity()));
+        Map<Long, Employee> employeeIdMap = roster.getEmployeeList().stream()
                 .collect(Collectors.toMap(Employee::getId, Function.identity()));
 
-        Map<Long, Shift> shiftIdMap = shiftRepository.findAllByTenantId(tenantId)
-                .stream()
-                .collect(Collectors.toMap(Shift::getId, Function.identity()));
-
-        for (Shift shift : newRoster.getShiftList()) {
-            Shift attachedShift = shiftIdMap.get(shift.getId());
-            if (attachedShift == null) {
+        List<Shift> shiftList = roster.getShiftList().stream()
+                .filter(shift -> !changedShiftIdSet.contains(shift.getId()))
+                .collect(Collectors.toList());
+        for (Shift changedShift : shiftRepository.findAllById(changedShiftIdSet)) {
+            if (!changedShift.getTenantId().equals(tenantId)) {
                 continue;
             }
-            attachedShift.setEmployee((shift.getEmployee() == null) ?
-                                              null : employeeIdMap.get(shift.getEmployee().getId()));
+            Shift shift = changedShift.inTimeZone(zoneId);
+            Spot spot = spotIdMap.get(shift.getSpot().getId());
+            Employee rotationEmployee = (shift.getRotationEmployee() == null) ? null
+                    : employeeIdMap.get(shift.getRotationEmployee().getId());
+            Employee employee = (shift.getEmployee() == null) ? null : employeeIdMap.get(shift.getEmployee().getId());
+            if (spot == null || (shift.getRotationEmployee() != null && rotationEmployee == null)
+                    || (shift.getEmployee() != null && employee == null)) {
+                return null;
+            }
+            // Use the roster's problem facts, which carry the skill index
+            shift.setSpot(spot);
+            shift.setRotationEmployee(rotationEmployee);
+            shift.setEmployee(employee);
+            shiftList.add(shift);
         }
+        roster.setShiftList(shiftList);
+
+        try (ScoreDirector<Roster> scoreDirector = solverManager.getScoreDirector()) {
+            scoreDirector.setWorkingSolution(roster);
+            roster.setScore((HardMediumSoftLongScore) scoreDirector.calculateScore());
+        }
+        return roster;
+    }
+
+    /**
+     * Assigns the shifts to the employees with one JDBC batch update,
+     * without loading the shifts and employees first.
+     * @param tenantId never null
+     * @param shiftIdToEmployeeIdMap never null, a null employee id unassigns the shift
+     */
+    @Transactional
+    public void updateEmployeesOfShifts(Integer tenantId, Map<Long, Long> shiftIdToEmployeeIdMap) {
+        // TODO HACK ignores the version of the shift, so a solve() never fails on a concurrent edit
+        List<Object[]> batchArgumentsList = shiftIdToEmployeeIdMap.entrySet().stream()
+                .map(entry -> new Object[]{entry.getValue(), entry.getKey(), tenantId})
+                .collect(Collectors.toList());
+        jdbcTemplate.batchUpdate("update shift set employee_id = ?, version = version + 1" +
+                                         " where id = ? and tenant_id = ?",
+                                 batchArgumentsList, new int[]{Types.BIGINT, Types.BIGINT, Types.INTEGER});
+        invalidateRosterSnapshot(tenantId);
     }
 
     // ************************************************************************
@@ -369,12 +723,17 @@ public class RosterService extends AbstractRestService {
         solverManager.terminate(tenantId);
     }
 
+    public SolverStatus getSolverStatus(Integer tenantId) {
+        return solverManager.getSolverStatus(tenantId);
+    }
+
     // ************************************************************************
     // Publish
     // ************************************************************************
 
     @Transactional
     public PublishResult publishAndProvision(Integer tenantId) {
+        long startTimeMillis = System.currentTimeMillis();
         RosterState rosterState = getRosterState(tenantId);
         LocalDate publishFrom = rosterState.getFirstDraftDate();
         LocalDate publishTo = publishFrom.plusDays(rosterState.getPublishLength());
@@ -384,24 +743,22 @@ public class RosterService extends AbstractRestService {
         rosterState.setFirstDraftDate(publishTo);
 
         // Provision
-        List<ShiftTemplate> shiftTemplateList = shiftTemplateRepository.findAllByTenantId(tenantId);
-        Map<Integer, List<ShiftTemplate>> dayOffsetToShiftTemplateListMap = shiftTemplateList.stream()
-                .collect(groupingBy(ShiftTemplate::getStartDayOffset));
-
-        int dayOffset = rosterState.getUnplannedRotationOffset();
-        LocalDate shiftDate = firstUnplannedDate;
-        for (int i = 0; i < rosterState.getPublishLength(); i++) {
-            List<ShiftTemplate> dayShiftTemplateList = dayOffsetToShiftTemplateListMap.getOrDefault(
-                    dayOffset, Collections.emptyList());
-            for (ShiftTemplate shiftTemplate : dayShiftTemplateList) {
-                Shift shift = shiftTemplate.createShiftOnDate(shiftDate, rosterState.getRotationLength(),
-                                                              rosterState.getTimeZone(), false);
-                shiftRepository.save(shift);
-            }
-            shiftDate = shiftDate.plusDays(1);
-            dayOffset = (dayOffset + 1) % rosterState.getRotationLength();
-        }
+        RotationExpander rotationExpander = new RotationExpander(shiftTemplateRepository.findAllByTenantId(tenantId),
+                                                                 rosterState.getRotationLength(),
+                                                                 rosterState.getTimeZone());
+        List<Shift> provisionedShiftList = rotationExpander.createShifts(firstUnplannedDate,
+                                                                         rosterState.getUnplannedRotationOffset(),
+                                                                         rosterState.getPublishLength());
+        int dayOffset = (rosterState.getUnplannedRotationOffset() + rosterState.getPublishLength())
+                % rosterState.getRotationLength();
+        // Flushed as JDBC batch inserts, see hibernate.jdbc.batch_size in application.properties
+        shiftRepository.saveAll(provisionedShiftList);
+        shiftRepository.flush();
         rosterState.setUnplannedRotationOffset(dayOffset);
+        solverManager.onProblemFactChanged(tenantId);
+        logger.info("Published tenant ({}) from ({}) to ({}) and provisioned ({}) shifts in ({}) ms.",
+                    tenantId, publishFrom, publishTo, provisionedShiftList.size(),
+                    System.currentTimeMillis() - startTimeMillis);
         return new PublishResult(publishFrom, publishTo);
     }
 }
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaweb.employeerostering.service.roster;
+
+import java.time.OffsetDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.optaplanner.core.api.score.buildin.hardmediumsoftlong.HardMediumSoftLongScore;
+import org.optaplanner.core.api.score.constraint.ConstraintMatch;
+import org.optaplanner.core.api.score.constraint.Indictment;
+import org.optaweb.employeerostering.domain.shift.Shift;
+
+/**
+ * The score of a tenant's roster and its indictments, calculated together in a single score calculation.
+ * Cached by {@link RosterService#getRosterSnapshot(Integer)} until an entity of the tenant changes,
+ * so the indictment map must not be modified.
+ * <p>
+ * The indictments are copied, because a score director updates its own indictments in place
+ * on its next score calculation, while a snapshot might still be read by another thread.
+ */
+public class RosterSnapshot {
+
+    private final HardMediumSoftLongScore score;
+    private final Map<Object, Indictment> indictmentMap;
+
+    public RosterSnapshot(HardMediumSoftLongScore score, Map<Object, Indictment> indictmentMap) {
+        this.score = score;
+        this.indictmentMap = copyIndictmentMap(indictmentMap);
+    }
+
+    public HardMediumSoftLongScore getScore() {
+        return score;
+    }
+
+    public Map<Object, Indictment> getIndictmentMap() {
+        return indictmentMap;
+    }
+
+    /**
+     * The score of the constraint matches that involve a shift overlapping the date window.
+     * It's the same whether this snapshot scored the tenant's whole roster or only the window and its margin,
+     * see {@link RosterService#getRosterSnapshot(Integer, java.time.LocalDate, java.time.LocalDate)}.
+     * @param fromDateTime never null, inclusive
+     * @param toDateTime never null, exclusive
+     * @return never null
+     */
+    public HardMediumSoftLongScore getWindowScore(OffsetDateTime fromDateTime, OffsetDateTime toDateTime) {
+        // A constraint match of 2 shifts in the window is in both their indictments, but counts once
+        Set<ConstraintMatch> constraintMatchSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Map.Entry<Object, Indictment> entry : indictmentMap.entrySet()) {
+            if (!(entry.getKey() instanceof Shift)) {
+                continue;
+            }
+            Shift shift = (Shift) entry.getKey();
+            if (!shift.getEndDateTime().isBefore(fromDateTime) && shift.getStartDateTime().isBefore(toDateTime)) {
+                constraintMatchSet.addAll(entry.getValue().getConstraintMatchSet());
+            }
+        }
+        HardMediumSoftLongScore windowScore = HardMediumSoftLongScore.ZERO;
+        for (ConstraintMatch constraintMatch : constraintMatchSet) {
+            windowScore = windowScore.add((HardMediumSoftLongScore) constraintMatch.getScore());
+        }
+        return windowScore;
+    }
+
+    private static Map<Object, Indictment> copyIndictmentMap(Map<Object, Indictment> indictmentMap) {
+        Map<Object, Indictment> indictmentMapCopy = new HashMap<>(indictmentMap.size() * 4 / 3 + 1);
+        for (Map.Entry<Object, Indictment> entry : indictmentMap.entrySet()) {
+            Indictment indictment = new Indictment(entry.getKey(), HardMediumSoftLongScore.ZERO);
+            // A constraint match is immutable, so it is shared
+            for (ConstraintMatch constraintMatch : entry.getValue().getConstraintMatchSet()) {
+                indictment.addConstraintMatch(constraintMatch);
+            }
+            indictmentMapCopy.put(entry.getKey(), indictment);
+        }
+        return Collections.unmodifiableMap(indictmentMapCopy);
+    }
+}
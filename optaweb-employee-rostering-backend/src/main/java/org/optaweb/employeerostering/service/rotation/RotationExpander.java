@@ -0,0 +1,138 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaweb.employeerostering.service.rotation;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.optaweb.employeerostering.domain.rotation.ShiftTemplate;
+import org.optaweb.employeerostering.domain.shift.Shift;
+
+/**
+ * Expands a tenant's rotation into shifts, for a horizon of many days, such as the publish of a whole quarter.
+ * <p>
+ * Unlike {@link ShiftTemplate#createShiftOnDate(LocalDate, int, ZoneId, boolean)},
+ * it groups the shift templates by day offset once and looks up the time zone offset once per day
+ * (only a day with a time zone transition looks it up per shift).
+ * It expands on the caller's thread, because the shift templates are managed entities of the caller's transaction.
+ */
+public class RotationExpander {
+
+    private final int rotationLength;
+    private final ZoneRules zoneRules;
+    // Indexed by the day offset in the rotation
+    private final List<List<ShiftTemplate>> dayOffsetToShiftTemplateListList;
+    // How many days after its start day the longest shift ends
+    private final int maximumEndDayDistance;
+
+    /**
+     * @param shiftTemplateList never null, the templates with a day offset outside the rotation are ignored
+     * @param rotationLength at least 1
+     * @param zoneId never null, the tenant's time zone
+     */
+    public RotationExpander(List<ShiftTemplate> shiftTemplateList, int rotationLength, ZoneId zoneId) {
+        if (rotationLength < 1) {
+            throw new IllegalArgumentException("The rotationLength (" + rotationLength + ") must be at least 1.");
+        }
+        this.rotationLength = rotationLength;
+        this.zoneRules = zoneId.getRules();
+        dayOffsetToShiftTemplateListList = new ArrayList<>(rotationLength);
+        for (int dayOffset = 0; dayOffset < rotationLength; dayOffset++) {
+            dayOffsetToShiftTemplateListList.add(new ArrayList<>());
+        }
+        int maximumEndDayDistance = 0;
+        for (ShiftTemplate shiftTemplate : shiftTemplateList) {
+            int startDayOffset = shiftTemplate.getStartDayOffset();
+            if (startDayOffset >= 0 && startDayOffset < rotationLength) {
+                dayOffsetToShiftTemplateListList.get(startDayOffset).add(shiftTemplate);
+                maximumEndDayDistance = Math.max(maximumEndDayDistance, getEndDayDistance(shiftTemplate));
+            }
+        }
+        this.maximumEndDayDistance = maximumEndDayDistance;
+    }
+
+    /**
+     * @param firstDate never null, the first day to create shifts on
+     * @param firstDayOffset the day offset of firstDate in the rotation
+     * @param dayCount how many days to create shifts on
+     * @return never null, ordered by day, the shifts are not pinned and not assigned
+     */
+    public List<Shift> createShifts(LocalDate firstDate, int firstDayOffset, int dayCount) {
+        int horizonLength = dayCount + maximumEndDayDistance;
+        LocalDate[] dates = new LocalDate[horizonLength];
+        ZoneOffset[] zoneOffsets = new ZoneOffset[horizonLength];
+        for (int day = 0; day < horizonLength; day++) {
+            dates[day] = firstDate.plusDays(day);
+            zoneOffsets[day] = getZoneOffsetOfWholeDay(dates[day]);
+        }
+
+        List<Shift> shiftList = new ArrayList<>();
+        for (int day = 0; day < dayCount; day++) {
+            addShiftsOnDay(shiftList, dates, zoneOffsets, day, (firstDayOffset + day) % rotationLength);
+        }
+        return shiftList;
+    }
+
+    private void addShiftsOnDay(List<Shift> shiftList, LocalDate[] dates, ZoneOffset[] zoneOffsets,
+                                int day, int dayOffset) {
+        for (ShiftTemplate shiftTemplate : dayOffsetToShiftTemplateListList.get(dayOffset)) {
+            int endDay = day + getEndDayDistance(shiftTemplate);
+            OffsetDateTime startDateTime = toOffsetDateTime(dates[day].atTime(shiftTemplate.getStartTime()),
+                                                            zoneOffsets[day]);
+            OffsetDateTime endDateTime = toOffsetDateTime(dates[endDay].atTime(shiftTemplate.getEndTime()),
+                                                          zoneOffsets[endDay]);
+            shiftList.add(new Shift(shiftTemplate.getTenantId(), shiftTemplate.getSpot(), startDateTime, endDateTime,
+                                    shiftTemplate.getRotationEmployee()));
+        }
+    }
+
+    private int getEndDayDistance(ShiftTemplate shiftTemplate) {
+        if (shiftTemplate.getStartDayOffset() <= shiftTemplate.getEndDayOffset()) {
+            return shiftTemplate.getEndDayOffset() - shiftTemplate.getStartDayOffset();
+        }
+        // Happens for shifts that "wrap around" in the rotation (ex: start on last day of the rotation,
+        // end on first day of the rotation)
+        return rotationLength + shiftTemplate.getEndDayOffset() - shiftTemplate.getStartDayOffset();
+    }
+
+    /**
+     * @return null if the date has a time zone transition, so its offset depends on the time of day
+     */
+    private ZoneOffset getZoneOffsetOfWholeDay(LocalDate date) {
+        // The first and last instant that are on that date in any time zone
+        Instant earliestInstant = date.atStartOfDay().toInstant(ZoneOffset.MAX);
+        Instant latestInstant = date.plusDays(1).atStartOfDay().toInstant(ZoneOffset.MIN);
+        ZoneOffsetTransition transition = zoneRules.nextTransition(earliestInstant);
+        if (transition != null && transition.getInstant().isBefore(latestInstant)) {
+            return null;
+        }
+        return zoneRules.getOffset(earliestInstant);
+    }
+
+    private OffsetDateTime toOffsetDateTime(LocalDateTime localDateTime, ZoneOffset zoneOffsetOfWholeDay) {
+        return OffsetDateTime.of(localDateTime, (zoneOffsetOfWholeDay != null) ? zoneOffsetOfWholeDay
+                : zoneRules.getOffset(localDateTime));
+    }
+}
@@ -45,28 +45,31 @@ public interface ShiftRepository extends JpaRepository<Shift, Long> {
             " where s.tenantId = :tenantId")
     void deleteForTenant(@Param("tenantId") Integer tenantId);
 
-    @Query("select distinct sa from Shift sa" +
-            " left join fetch sa.spot s" +
-            " left join fetch sa.rotationEmployee re" +
-            " left join fetch sa.employee e" +
+    /**
+     * Selects only the shift columns.
+     * The caller loads the spots and employees first, in the same transaction,
+     * so each shift takes them from the persistence context instead of joining their (wide) rows again.
+     * Shifts that start at the same time are ordered by id, which needs no join either.
+     */
+    @Query("select sa from Shift sa" +
             " where sa.tenantId = :tenantId" +
             " and sa.spot IN :spotSet" +
             " and sa.endDateTime >= :startDateTime" +
             " and sa.startDateTime < :endDateTime" +
-            " order by sa.startDateTime, s.name, e.name")
+            " order by sa.startDateTime, sa.id")
     List<Shift> filterWithSpots(@Param("tenantId") Integer tenantId, @Param("spotSet") Set<Spot> spotSet,
                                 @Param("startDateTime") OffsetDateTime startDateTime,
                                 @Param("endDateTime") OffsetDateTime endDateTime);
 
-    @Query("select distinct sa from Shift sa" +
-            " left join fetch sa.spot s" +
-            " left join fetch sa.rotationEmployee re" +
-            " left join fetch sa.employee e" +
+    /**
+     * Selects only the shift columns, see {@link #filterWithSpots(Integer, Set, OffsetDateTime, OffsetDateTime)}.
+     */
+    @Query("select sa from Shift sa" +
             " where sa.tenantId = :tenantId" +
             " and sa.employee IN :employeeSet" +
             " and sa.endDateTime >= :startDateTime" +
             " and sa.startDateTime < :endDateTime" +
-            " order by sa.startDateTime, s.name, e.name")
+            " order by sa.startDateTime, sa.id")
     List<Shift> filterWithEmployees(@Param("tenantId") Integer tenantId,
                                     @Param("employeeSet") Set<Employee> employeeSet,
                                     @Param("startDateTime") OffsetDateTime startDateTime,
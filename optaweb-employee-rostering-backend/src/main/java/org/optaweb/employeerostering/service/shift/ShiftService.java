@@ -32,6 +32,7 @@ import org.optaweb.employeerostering.service.common.AbstractRestService;
 import org.optaweb.employeerostering.service.common.IndictmentUtils;
 import org.optaweb.employeerostering.service.employee.EmployeeRepository;
 import org.optaweb.employeerostering.service.roster.RosterService;
+import org.optaweb.employeerostering.service.solver.WannabeSolverManager;
 import org.optaweb.employeerostering.service.spot.SpotRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -49,19 +50,21 @@ public class ShiftService extends AbstractRestService {
 
     private IndictmentUtils indictmentUtils;
 
+    private WannabeSolverManager solverManager;
+
     public ShiftService(ShiftRepository shiftRepository, SpotRepository spotRepository,
                         EmployeeRepository employeeRepository, RosterService rosterService,
-                        IndictmentUtils indictmentUtils) {
+                        IndictmentUtils indictmentUtils, WannabeSolverManager solverManager) {
         this.shiftRepository = shiftRepository;
         this.spotRepository = spotRepository;
         this.employeeRepository = employeeRepository;
         this.rosterService = rosterService;
         this.indictmentUtils = indictmentUtils;
+        this.solverManager = solverManager;
     }
 
     public List<ShiftView> getShiftList(Integer tenantId) {
-        Map<Object, Indictment> indictmentMap = indictmentUtils.getIndictmentMapForRoster(
-                rosterService.buildRoster(tenantId));
+        Map<Object, Indictment> indictmentMap = rosterService.getRosterSnapshot(tenantId).getIndictmentMap();
         return getAllShifts(tenantId).stream()
                 .map(s -> indictmentUtils.getShiftViewWithIndictment(
                         rosterService.getRosterState(tenantId).getTimeZone(), s, indictmentMap.get(s)))
@@ -79,8 +82,7 @@ public class ShiftService extends AbstractRestService {
                 .orElseThrow(() -> new EntityNotFoundException("No Shift entity found with ID (" + id + ")."));
 
         validateTenantIdParameter(tenantId, shift);
-        Indictment indictment = indictmentUtils.getIndictmentMapForRoster(
-                rosterService.buildRoster(tenantId)).get(shift);
+        Indictment indictment = rosterService.getRosterSnapshot(tenantId).getIndictmentMap().get(shift);
         return indictmentUtils.getShiftViewWithIndictment(rosterService.getRosterState(tenantId).getTimeZone(), shift,
                                                           indictment);
     }
@@ -127,9 +129,9 @@ public class ShiftService extends AbstractRestService {
     public ShiftView createShift(Integer tenantId, ShiftView shiftView) {
         Shift shift = convertFromView(tenantId, shiftView);
         Shift persistedShift = shiftRepository.save(shift);
+        solverManager.onShiftChanged(tenantId, persistedShift.getId(), persistedShift);
 
-        Indictment indictment = indictmentUtils.getIndictmentMapForRoster(
-                rosterService.buildRoster(tenantId)).get(persistedShift);
+        Indictment indictment = rosterService.getRosterSnapshot(tenantId).getIndictmentMap().get(persistedShift);
         return indictmentUtils.getShiftViewWithIndictment(rosterService.getRosterState(tenantId).getTimeZone(),
                                                           persistedShift, indictment);
     }
@@ -156,9 +158,9 @@ public class ShiftService extends AbstractRestService {
 
         // Flush to increase version number before we duplicate it to ShiftView
         Shift updatedShift = shiftRepository.saveAndFlush(oldShift);
+        solverManager.onShiftChanged(tenantId, updatedShift.getId(), updatedShift);
 
-        Indictment indictment = indictmentUtils.getIndictmentMapForRoster(
-                rosterService.buildRoster(tenantId)).get(updatedShift);
+        Indictment indictment = rosterService.getRosterSnapshot(tenantId).getIndictmentMap().get(updatedShift);
         return indictmentUtils.getShiftViewWithIndictment(rosterService.getRosterState(tenantId).getTimeZone(),
                                                           updatedShift, indictment);
     }
@@ -171,6 +173,7 @@ public class ShiftService extends AbstractRestService {
         }
         validateTenantIdParameter(tenantId, shiftOptional.get());
         shiftRepository.deleteById(id);
+        solverManager.onShiftChanged(tenantId, id, null);
         return true;
     }
 }
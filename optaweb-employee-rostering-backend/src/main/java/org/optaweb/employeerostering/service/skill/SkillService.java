@@ -24,6 +24,7 @@ import javax.persistence.EntityNotFoundException;
 import org.optaweb.employeerostering.domain.skill.Skill;
 import org.optaweb.employeerostering.domain.skill.view.SkillView;
 import org.optaweb.employeerostering.service.common.AbstractRestService;
+import org.optaweb.employeerostering.service.solver.WannabeSolverManager;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -32,8 +33,11 @@ public class SkillService extends AbstractRestService {
 
     private final SkillRepository skillRepository;
 
-    public SkillService(SkillRepository skillRepository) {
+    private final WannabeSolverManager solverManager;
+
+    public SkillService(SkillRepository skillRepository, WannabeSolverManager solverManager) {
         this.skillRepository = skillRepository;
+        this.solverManager = solverManager;
     }
 
     public Skill convertFromView(Integer tenantId, SkillView skillView) {
@@ -68,6 +72,7 @@ public class SkillService extends AbstractRestService {
         }
 
         validateTenantIdParameter(tenantId, skillOptional.get());
+        solverManager.onProblemFactChanged(tenantId);
         skillRepository.deleteById(id);
         return true;
     }
@@ -75,6 +80,7 @@ public class SkillService extends AbstractRestService {
     @Transactional
     public Skill createSkill(Integer tenantId, SkillView skillView) {
         Skill skill = convertFromView(tenantId, skillView);
+        solverManager.onProblemFactChanged(tenantId);
         return skillRepository.save(skill);
     }
 
@@ -92,6 +98,7 @@ public class SkillService extends AbstractRestService {
         }
 
         oldSkill.setName(newSkill.getName());
+        solverManager.onProblemFactChanged(tenantId);
         return skillRepository.save(oldSkill);
     }
 }
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.optaweb.employeerostering.service.solver;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.optaplanner.core.api.solver.ProblemFactChange;
+import org.optaplanner.core.api.solver.Solver;
+import org.optaplanner.core.api.solver.event.BestSolutionChangedEvent;
+import org.optaweb.employeerostering.domain.roster.Roster;
+import org.optaweb.employeerostering.domain.shift.Shift;
+import org.optaweb.employeerostering.service.roster.RosterService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persists the best rosters of one solver run.
+ * <p>
+ * The best rosters found within the persistence delay are coalesced into the latest one,
+ * and only the shifts whose employee differs from the last persisted assignment are written.
+ * A best roster that predates a problem fact change added through this persister is never persisted,
+ * so it can't overwrite a user's edit.
+ */
+public class BestRosterPersister {
+
+    protected final transient Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final Integer tenantId;
+    private final RosterService rosterService;
+    private final ScheduledExecutorService persistenceExecutor;
+    private final Duration persistenceDelay;
+
+    // Orders the pending roster updates and the writes against the problem fact changes
+    private final Object pendingRosterLock = new Object();
+    private final AtomicBoolean persistenceScheduled = new AtomicBoolean(false);
+    // Guarded by pendingRosterLock
+    private Roster pendingRoster;
+    // Guarded by pendingRosterLock, includes the user's edits
+    private final Map<Long, Long> persistedShiftIdToEmployeeIdMap;
+
+    /**
+     * @param tenantId never null
+     * @param persistedRoster never null, the roster as it is in the database
+     * @param rosterService never null
+     * @param persistenceExecutor never null
+     * @param persistenceDelay never null, {@link Duration#ZERO} persists every best roster immediately
+     */
+    public BestRosterPersister(Integer tenantId, Roster persistedRoster, RosterService rosterService,
+                               ScheduledExecutorService persistenceExecutor, Duration persistenceDelay) {
+        this.tenantId = tenantId;
+        this.rosterService = rosterService;
+        this.persistenceExecutor = persistenceExecutor;
+        this.persistenceDelay = persistenceDelay;
+        this.persistedShiftIdToEmployeeIdMap = extractShiftIdToEmployeeIdMap(persistedRoster);
+    }
+
+    public void onNewBestRoster(BestSolutionChangedEvent<Roster> event) {
+        synchronized (pendingRosterLock) {
+            // Otherwise the best roster doesn't include a change that the database already has
+            if (!event.isEveryProblemFactChangeProcessed()) {
+                return;
+            }
+            pendingRoster = event.getNewBestSolution();
+        }
+        if (persistenceDelay.isZero()) {
+            flush();
+        } else if (persistenceScheduled.compareAndSet(false, true)) {
+            persistenceExecutor.schedule(() -> {
+                persistenceScheduled.set(false);
+                try {
+                    flush();
+                } catch (RuntimeException e) {
+                    logger.error("Error persisting the best roster for tenantId (" + tenantId + ").", e);
+                }
+            }, persistenceDelay.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Adds the change to the solver and drops the pending best roster,
+     * because that roster predates the change and would overwrite it.
+     * A shift change also updates the persisted assignment of that shift,
+     * so a later best roster that assigns the shift back to its former employee is persisted too.
+     * Call this only after the change is committed to the database.
+     * @param solver never null, the solver whose best rosters this persists
+     * @param problemFactChange never null
+     */
+    public void addProblemFactChange(Solver<Roster> solver, ProblemFactChange<Roster> problemFactChange) {
+        synchronized (pendingRosterLock) {
+            solver.addProblemFactChange(problemFactChange);
+            pendingRoster = null;
+            if (problemFactChange instanceof ShiftProblemFactChange) {
+                ShiftProblemFactChange shiftProblemFactChange = (ShiftProblemFactChange) problemFactChange;
+                persistedShiftIdToEmployeeIdMap.put(shiftProblemFactChange.getShiftId(),
+                                                    shiftProblemFactChange.getEmployeeId());
+            }
+        }
+    }
+
+    /**
+     * Persists the pending best roster, if any. Call this when solving ends, so the final best roster is persisted.
+     * A problem fact change waits until the write is done, so it can't slip in between taking and writing the roster.
+     */
+    public void flush() {
+        synchronized (pendingRosterLock) {
+            Roster roster = pendingRoster;
+            pendingRoster = null;
+            if (roster != null) {
+                persist(roster);
+            }
+        }
+    }
+
+    private void persist(Roster roster) {
+        Map<Long, Long> changedShiftIdToEmployeeIdMap = new HashMap<>();
+        extractShiftIdToEmployeeIdMap(roster).forEach((shiftId, employeeId) -> {
+            if (!persistedShiftIdToEmployeeIdMap.containsKey(shiftId)
+                    || !Objects.equals(persistedShiftIdToEmployeeIdMap.get(shiftId), employeeId)) {
+                changedShiftIdToEmployeeIdMap.put(shiftId, employeeId);
+            }
+        });
+        if (changedShiftIdToEmployeeIdMap.isEmpty()) {
+            return;
+        }
+        logger.info("  Persisting ({}) changed shifts of the best roster for tenantId ({}).",
+                    changedShiftIdToEmployeeIdMap.size(), tenantId);
+        rosterService.updateEmployeesOfShifts(tenantId, changedShiftIdToEmployeeIdMap);
+        persistedShiftIdToEmployeeIdMap.putAll(changedShiftIdToEmployeeIdMap);
+    }
+
+    private static Map<Long, Long> extractShiftIdToEmployeeIdMap(Roster roster) {
+        Map<Long, Long> shiftIdToEmployeeIdMap = new HashMap<>(roster.getShiftList().size());
+        for (Shift shift : roster.getShiftList()) {
+            shiftIdToEmployeeIdMap.put(shift.getId(), (shift.getEmployee() == null) ? null
+                    : shift.getEmployee().getId());
+        }
+        return shiftIdToEmployeeIdMap;
+    }
+}
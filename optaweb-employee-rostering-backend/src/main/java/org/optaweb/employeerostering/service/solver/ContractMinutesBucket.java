@@ -0,0 +1,78 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaweb.employeerostering.service.solver;
+
+import java.util.Objects;
+
+import org.optaweb.employeerostering.domain.employee.Employee;
+import org.optaweb.employeerostering.domain.violation.ContractMinutesViolation;
+
+/**
+ * Logically inserted by the score rules for every (employee, period) that has at least one shift,
+ * so the minutes worked in that period are accumulated once instead of once per shift.
+ */
+public class ContractMinutesBucket {
+
+    private final Employee employee;
+    private final ContractMinutesViolation.Type type;
+    /**
+     * The epoch day for {@link ContractMinutesViolation.Type#DAY}, the epoch day of the first day of the week
+     * for {@link ContractMinutesViolation.Type#WEEK}, the month index for {@link ContractMinutesViolation.Type#MONTH}
+     * and the year for {@link ContractMinutesViolation.Type#YEAR}.
+     */
+    private final int key;
+
+    public ContractMinutesBucket(Employee employee, ContractMinutesViolation.Type type, int key) {
+        this.employee = employee;
+        this.type = type;
+        this.key = key;
+    }
+
+    public Employee getEmployee() {
+        return employee;
+    }
+
+    public ContractMinutesViolation.Type getType() {
+        return type;
+    }
+
+    public int getKey() {
+        return key;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ContractMinutesBucket other = (ContractMinutesBucket) o;
+        return key == other.key && type == other.type && Objects.equals(employee, other.employee);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(employee, type, key);
+    }
+
+    @Override
+    public String toString() {
+        return employee + " " + type + " " + key;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaweb.employeerostering.service.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.optaweb.employeerostering.domain.employee.Employee;
+import org.optaweb.employeerostering.domain.employee.EmployeeAvailability;
+
+/**
+ * The availabilities of one employee, sorted by start, so the availabilities that overlap a shift are found
+ * with a binary search instead of by intersecting every availability of the employee with the shift.
+ * <p>
+ * An availability can only overlap a time slot if it starts no earlier than the longest availability before
+ * the time slot starts, so that window is swept instead of keeping an interval tree.
+ * Availabilities are limited to less than 28 hours, which keeps the window small.
+ */
+public class EmployeeAvailabilityIndex {
+
+    private static final Comparator<EmployeeAvailability> START_COMPARATOR = Comparator
+            .comparingLong(EmployeeAvailability::getStartEpochMinute)
+            .thenComparingLong(EmployeeAvailability::getEndEpochMinute);
+
+    private final Employee employee;
+    private final EmployeeAvailability[] availabilities;
+    private final long[] startEpochMinutes;
+    private final long maximumDurationInMinutes;
+
+    /**
+     * @param employee never null
+     * @param employeeAvailabilities never null, all availabilities of the employee
+     */
+    public EmployeeAvailabilityIndex(Employee employee, Collection<EmployeeAvailability> employeeAvailabilities) {
+        this.employee = employee;
+        availabilities = employeeAvailabilities.toArray(new EmployeeAvailability[0]);
+        Arrays.sort(availabilities, START_COMPARATOR);
+        startEpochMinutes = new long[availabilities.length];
+        long maximumDurationInMinutes = 0L;
+        for (int i = 0; i < availabilities.length; i++) {
+            EmployeeAvailability employeeAvailability = availabilities[i];
+            startEpochMinutes[i] = employeeAvailability.getStartEpochMinute();
+            maximumDurationInMinutes = Math.max(maximumDurationInMinutes,
+                                                employeeAvailability.getEndEpochMinute()
+                                                        - employeeAvailability.getStartEpochMinute());
+        }
+        this.maximumDurationInMinutes = maximumDurationInMinutes;
+    }
+
+    public Employee getEmployee() {
+        return employee;
+    }
+
+    /**
+     * Uses the same bounds as {@link org.optaweb.employeerostering.domain.common.DateTimeUtils#doTimeslotsIntersect}.
+     * @param startEpochMinute the start of the time slot
+     * @param endEpochMinute the end of the time slot
+     * @return never null, the availabilities that overlap the time slot, sorted by start
+     */
+    public List<EmployeeAvailability> getOverlappingList(long startEpochMinute, long endEpochMinute) {
+        int i = findFirstStartingAtOrAfter(startEpochMinute - maximumDurationInMinutes);
+        List<EmployeeAvailability> overlappingList = null;
+        for (; i < availabilities.length && startEpochMinutes[i] <= endEpochMinute; i++) {
+            EmployeeAvailability employeeAvailability = availabilities[i];
+            if (employeeAvailability.getEndEpochMinute() >= startEpochMinute) {
+                if (overlappingList == null) {
+                    overlappingList = new ArrayList<>(2);
+                }
+                overlappingList.add(employeeAvailability);
+            }
+        }
+        return overlappingList == null ? Collections.emptyList() : overlappingList;
+    }
+
+    private int findFirstStartingAtOrAfter(long epochMinute) {
+        int low = 0;
+        int high = startEpochMinutes.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (startEpochMinutes[middle] < epochMinute) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public String toString() {
+        return employee + " (" + availabilities.length + " availabilities)";
+    }
+}
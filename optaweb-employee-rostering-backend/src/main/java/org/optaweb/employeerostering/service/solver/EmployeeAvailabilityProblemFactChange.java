@@ -0,0 +1,79 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.optaweb.employeerostering.service.solver;
+
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.optaplanner.core.api.solver.ProblemFactChange;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+import org.optaweb.employeerostering.domain.employee.Employee;
+import org.optaweb.employeerostering.domain.employee.EmployeeAvailability;
+import org.optaweb.employeerostering.domain.roster.Roster;
+
+/**
+ * Replaces an employee availability of the working roster of a running solver by its new state in the database.
+ */
+public class EmployeeAvailabilityProblemFactChange implements ProblemFactChange<Roster> {
+
+    private final Long employeeAvailabilityId;
+    // A detached copy, null if the employee availability was deleted
+    private final EmployeeAvailability newEmployeeAvailability;
+
+    /**
+     * @param employeeAvailabilityId never null
+     * @param newEmployeeAvailability null if the employee availability was deleted
+     */
+    public EmployeeAvailabilityProblemFactChange(Long employeeAvailabilityId,
+                                                 EmployeeAvailability newEmployeeAvailability) {
+        this.employeeAvailabilityId = employeeAvailabilityId;
+        this.newEmployeeAvailability = (newEmployeeAvailability == null) ? null
+                : newEmployeeAvailability.inTimeZone(ZoneOffset.UTC);
+    }
+
+    @Override
+    public void doChange(ScoreDirector<Roster> scoreDirector) {
+        Roster roster = scoreDirector.getWorkingSolution();
+        // Planning clones share the problem fact lists, so change a copy instead of the best solution's list
+        List<EmployeeAvailability> employeeAvailabilityList = new ArrayList<>(roster.getEmployeeAvailabilityList());
+        roster.setEmployeeAvailabilityList(employeeAvailabilityList);
+        employeeAvailabilityList.stream()
+                .filter(employeeAvailability -> Objects.equals(employeeAvailability.getId(), employeeAvailabilityId))
+                .findFirst()
+                .ifPresent(oldEmployeeAvailability -> {
+                    scoreDirector.beforeProblemFactRemoved(oldEmployeeAvailability);
+                    employeeAvailabilityList.remove(oldEmployeeAvailability);
+                    scoreDirector.afterProblemFactRemoved(oldEmployeeAvailability);
+                });
+        if (newEmployeeAvailability != null) {
+            Employee employee = scoreDirector.lookUpWorkingObjectOrReturnNull(newEmployeeAvailability.getEmployee());
+            // Without the employee, the availability is only taken into account by the next solve
+            if (employee != null) {
+                EmployeeAvailability employeeAvailability =
+                        newEmployeeAvailability.inTimeZone(roster.getRosterState().getTimeZone());
+                employeeAvailability.setEmployee(employee);
+                scoreDirector.beforeProblemFactAdded(employeeAvailability);
+                employeeAvailabilityList.add(employeeAvailability);
+                scoreDirector.afterProblemFactAdded(employeeAvailability);
+            }
+        }
+        scoreDirector.triggerVariableListeners();
+    }
+}
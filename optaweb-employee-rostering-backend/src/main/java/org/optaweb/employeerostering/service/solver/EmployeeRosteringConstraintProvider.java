@@ -0,0 +1,240 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaweb.employeerostering.service.solver;
+
+import java.util.function.Function;
+
+import org.optaplanner.core.api.score.stream.Constraint;
+import org.optaplanner.core.api.score.stream.ConstraintFactory;
+import org.optaplanner.core.api.score.stream.ConstraintProvider;
+import org.optaplanner.core.api.score.stream.uni.UniConstraintStream;
+import org.optaweb.employeerostering.domain.common.DateTimeUtils;
+import org.optaweb.employeerostering.domain.contract.Contract;
+import org.optaweb.employeerostering.domain.employee.EmployeeAvailability;
+import org.optaweb.employeerostering.domain.employee.EmployeeAvailabilityState;
+import org.optaweb.employeerostering.domain.shift.Shift;
+import org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration;
+
+import static org.optaplanner.core.api.score.stream.ConstraintCollectors.sumLong;
+import static org.optaplanner.core.api.score.stream.Joiners.equal;
+import static org.optaplanner.core.api.score.stream.Joiners.lessThanOrEqual;
+
+/**
+ * Constraint Streams equivalent of employeeRosteringScoreRules.drl.
+ * <p>
+ * Every constraint has the same name, weight and justifications as its DRL counterpart,
+ * so {@link org.optaweb.employeerostering.service.common.IndictmentUtils} works with either score director.
+ */
+public class EmployeeRosteringConstraintProvider implements ConstraintProvider {
+
+    @Override
+    public Constraint[] defineConstraints(ConstraintFactory constraintFactory) {
+        return new Constraint[]{
+                // Hard constraints
+                requiredSkill(constraintFactory),
+                unavailableTimeSlot(constraintFactory),
+                oneShiftPerDay(constraintFactory),
+                noShiftsWithinTenHours(constraintFactory),
+                contractMaximumDailyMinutes(constraintFactory),
+                contractMaximumWeeklyMinutes(constraintFactory),
+                contractMaximumMonthlyMinutes(constraintFactory),
+                contractMaximumYearlyMinutes(constraintFactory),
+                // Medium constraints
+                assignEveryShift(constraintFactory),
+                // Soft constraints
+                undesiredTimeSlot(constraintFactory),
+                desiredTimeSlot(constraintFactory),
+                notRotationEmployee(constraintFactory)
+        };
+    }
+
+    // ************************************************************************
+    // Hard constraints
+    // ************************************************************************
+
+    protected Constraint requiredSkill(ConstraintFactory constraintFactory) {
+        return constraintFactory.from(Shift.class)
+                .filter(shift -> shift.getEmployee() != null &&
+                        !shift.getEmployee().hasRequiredSkills(shift.getSpot()))
+                .penalizeConfigurable("Required skill for a shift");
+    }
+
+    protected Constraint unavailableTimeSlot(ConstraintFactory constraintFactory) {
+        return constraintFactory.from(Shift.class)
+                .join(availabilityWithState(constraintFactory, EmployeeAvailabilityState.UNAVAILABLE),
+                      equal(Shift::getEmployee, EmployeeAvailability::getEmployee))
+                .filter(EmployeeRosteringConstraintProvider::doShiftAndAvailabilityIntersect)
+                .penalizeConfigurable("Unavailable time slot for an employee");
+    }
+
+    protected Constraint oneShiftPerDay(ConstraintFactory constraintFactory) {
+        return assignedShifts(constraintFactory)
+                .join(Shift.class,
+                      equal(Shift::getEmployee),
+                      equal(Shift::getStartDayIndex))
+                .filter((shift, otherShift) -> shift != otherShift)
+                .penalizeConfigurable("At most one shift assignment per day per employee");
+    }
+
+    protected Constraint noShiftsWithinTenHours(ConstraintFactory constraintFactory) {
+        return assignedShifts(constraintFactory)
+                .join(Shift.class,
+                      equal(Shift::getEmployee),
+                      lessThanOrEqual(Shift::getEndEpochMinute, Shift::getEndEpochMinute))
+                .filter((shift, otherShift) -> shift != otherShift &&
+                        otherShift.getStartEpochMinute() - shift.getEndEpochMinute() < 10L * 60L)
+                .penalizeConfigurable("No 2 shifts within 10 hours from each other");
+    }
+
+    protected Constraint contractMaximumDailyMinutes(ConstraintFactory constraintFactory) {
+        return contractMaximumMinutes(constraintFactory, "Daily minutes must not exceed contract maximum",
+                                      Contract::getMaximumMinutesPerDay,
+                                      Shift::getStartDayIndex);
+    }
+
+    protected Constraint contractMaximumWeeklyMinutes(ConstraintFactory constraintFactory) {
+        // The week bucket depends on the tenant's week start day, so the shifts are joined back on the employee
+        // and filtered by the week rather than joined on an equal key
+        return constraintFactory.from(RosterConstraintConfiguration.class)
+                .join(shiftsWithContractMaximum(constraintFactory, Contract::getMaximumMinutesPerWeek))
+                .groupBy((rosterConstraintConfiguration, shift) -> shift.getEmployee(),
+                         (rosterConstraintConfiguration, shift) ->
+                                 getFirstDayOfWeek(rosterConstraintConfiguration, shift),
+                         sumLong((rosterConstraintConfiguration, shift) -> shift.getDurationInMinutes()))
+                .filter((employee, firstDayOfWeek, minutesWorked) ->
+                                minutesWorked > employee.getContract().getMaximumMinutesPerWeek())
+                .join(Shift.class, equal((employee, firstDayOfWeek, minutesWorked) -> employee, Shift::getEmployee))
+                .filter((employee, firstDayOfWeek, minutesWorked, shift) ->
+                                shift.getStartDayIndex() >= firstDayOfWeek &&
+                                        shift.getStartDayIndex() < firstDayOfWeek + 7)
+                .penalizeConfigurable("Weekly minutes must not exceed contract maximum");
+    }
+
+    protected Constraint contractMaximumMonthlyMinutes(ConstraintFactory constraintFactory) {
+        return contractMaximumMinutes(constraintFactory, "Monthly minutes must not exceed contract maximum",
+                                      Contract::getMaximumMinutesPerMonth,
+                                      Shift::getStartMonthIndex);
+    }
+
+    protected Constraint contractMaximumYearlyMinutes(ConstraintFactory constraintFactory) {
+        return contractMaximumMinutes(constraintFactory, "Yearly minutes must not exceed contract maximum",
+                                      Contract::getMaximumMinutesPerYear,
+                                      Shift::getStartYear);
+    }
+
+    /**
+     * Sums the minutes of each employee per period once and then penalizes every shift in an overloaded period,
+     * just like the DRL rule does.
+     * @param periodMapping never null, the period key must not be a {@link Long}
+     * because the minutes worked are extracted from the justification list by type
+     */
+    private <Period_> Constraint contractMaximumMinutes(ConstraintFactory constraintFactory, String constraintName,
+                                                       Function<Contract, Integer> maximumMinutesMapping,
+                                                       Function<Shift, Period_> periodMapping) {
+        return shiftsWithContractMaximum(constraintFactory, maximumMinutesMapping)
+                .groupBy(Shift::getEmployee, periodMapping,
+                         sumLong(Shift::getDurationInMinutes))
+                .filter((employee, period, minutesWorked) ->
+                                minutesWorked > maximumMinutesMapping.apply(employee.getContract()))
+                .join(Shift.class,
+                      equal((employee, period, minutesWorked) -> employee, Shift::getEmployee),
+                      equal((employee, period, minutesWorked) -> period, periodMapping))
+                .penalizeConfigurable(constraintName);
+    }
+
+    // ************************************************************************
+    // Medium constraints
+    // ************************************************************************
+
+    protected Constraint assignEveryShift(ConstraintFactory constraintFactory) {
+        return constraintFactory.from(Shift.class)
+                .filter(shift -> shift.getEmployee() == null)
+                .penalizeConfigurable("Assign every shift");
+    }
+
+    // ************************************************************************
+    // Soft constraints
+    // ************************************************************************
+
+    protected Constraint undesiredTimeSlot(ConstraintFactory constraintFactory) {
+        return constraintFactory.from(Shift.class)
+                .join(availabilityWithState(constraintFactory, EmployeeAvailabilityState.UNDESIRED),
+                      equal(Shift::getEmployee, EmployeeAvailability::getEmployee))
+                .filter(EmployeeRosteringConstraintProvider::doShiftAndAvailabilityIntersect)
+                .join(constraintFactory.from(RosterConstraintConfiguration.class)
+                              .filter(configuration -> configuration.getUndesiredTimeSlotWeight() != 0))
+                .penalizeConfigurable("Undesired time slot for an employee",
+                                      (shift, employeeAvailability, rosterConstraintConfiguration) ->
+                                              rosterConstraintConfiguration.getUndesiredTimeSlotWeight());
+    }
+
+    protected Constraint desiredTimeSlot(ConstraintFactory constraintFactory) {
+        return constraintFactory.from(Shift.class)
+                .join(availabilityWithState(constraintFactory, EmployeeAvailabilityState.DESIRED),
+                      equal(Shift::getEmployee, EmployeeAvailability::getEmployee))
+                .filter(EmployeeRosteringConstraintProvider::doShiftAndAvailabilityIntersect)
+                .join(constraintFactory.from(RosterConstraintConfiguration.class)
+                              .filter(configuration -> configuration.getDesiredTimeSlotWeight() != 0))
+                .rewardConfigurable("Desired time slot for an employee",
+                                    (shift, employeeAvailability, rosterConstraintConfiguration) ->
+                                            rosterConstraintConfiguration.getDesiredTimeSlotWeight());
+    }
+
+    protected Constraint notRotationEmployee(ConstraintFactory constraintFactory) {
+        return constraintFactory.from(Shift.class)
+                .filter(shift -> shift.getRotationEmployee() != null && shift.getEmployee() != null &&
+                        !shift.getEmployee().equals(shift.getRotationEmployee()))
+                .join(constraintFactory.from(RosterConstraintConfiguration.class)
+                              .filter(configuration -> configuration.getRotationEmployeeMatchWeight() != 0))
+                .penalizeConfigurable("Employee is not rotation employee",
+                                      (shift, rosterConstraintConfiguration) ->
+                                              rosterConstraintConfiguration.getRotationEmployeeMatchWeight());
+    }
+
+    // ************************************************************************
+    // Helper methods
+    // ************************************************************************
+
+    private static UniConstraintStream<Shift> assignedShifts(ConstraintFactory constraintFactory) {
+        return constraintFactory.from(Shift.class)
+                .filter(shift -> shift.getEmployee() != null);
+    }
+
+    private static UniConstraintStream<Shift> shiftsWithContractMaximum(
+            ConstraintFactory constraintFactory, Function<Contract, Integer> maximumMinutesMapping) {
+        return assignedShifts(constraintFactory)
+                .filter(shift -> maximumMinutesMapping.apply(shift.getEmployee().getContract()) != null);
+    }
+
+    private static UniConstraintStream<EmployeeAvailability> availabilityWithState(
+            ConstraintFactory constraintFactory, EmployeeAvailabilityState state) {
+        return constraintFactory.from(EmployeeAvailability.class)
+                .filter(employeeAvailability -> employeeAvailability.getState() == state);
+    }
+
+    private static boolean doShiftAndAvailabilityIntersect(Shift shift, EmployeeAvailability employeeAvailability) {
+        return DateTimeUtils.doTimeslotsIntersect(employeeAvailability.getStartEpochMinute(),
+                                                  employeeAvailability.getEndEpochMinute(),
+                                                  shift.getStartEpochMinute(), shift.getEndEpochMinute());
+    }
+
+    private static int getFirstDayOfWeek(RosterConstraintConfiguration rosterConstraintConfiguration,
+                                         Shift shift) {
+        return DateTimeUtils.getFirstDayOfWeek(rosterConstraintConfiguration.getWeekStartDay(),
+                                               shift.getStartDayIndex());
+    }
+}
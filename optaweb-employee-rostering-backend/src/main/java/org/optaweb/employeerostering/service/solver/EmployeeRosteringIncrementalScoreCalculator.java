@@ -0,0 +1,529 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaweb.employeerostering.service.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import org.optaplanner.core.api.score.Score;
+import org.optaplanner.core.api.score.buildin.hardmediumsoftlong.HardMediumSoftLongScore;
+import org.optaplanner.core.api.score.constraint.ConstraintMatchTotal;
+import org.optaplanner.core.api.score.constraint.Indictment;
+import org.optaplanner.core.impl.score.director.incremental.ConstraintMatchAwareIncrementalScoreCalculator;
+import org.optaweb.employeerostering.domain.common.DateTimeUtils;
+import org.optaweb.employeerostering.domain.contract.Contract;
+import org.optaweb.employeerostering.domain.employee.Employee;
+import org.optaweb.employeerostering.domain.employee.EmployeeAvailability;
+import org.optaweb.employeerostering.domain.roster.Roster;
+import org.optaweb.employeerostering.domain.shift.Shift;
+import org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration;
+import org.optaweb.employeerostering.domain.violation.ContractMinutesViolation;
+
+/**
+ * Incremental Java equivalent of employeeRosteringScoreRules.drl.
+ * <p>
+ * Every employee keeps a start time sorted timeline of its shifts and its worked minutes per day, week, month and
+ * year, so a change of {@link Shift#getEmployee()} only visits the neighbours of that shift and only updates
+ * the periods of that shift, instead of comparing or re-accumulating every shift of the employee.
+ * Its availabilities are kept in an {@link EmployeeAvailabilityIndex}, so only the overlapping ones are visited.
+ * The constraint matches have the same names as the DRL and justifications that
+ * {@link org.optaweb.employeerostering.service.common.IndictmentUtils} reads the same way,
+ * but they are only calculated on demand, from scratch.
+ */
+public class EmployeeRosteringIncrementalScoreCalculator
+        implements ConstraintMatchAwareIncrementalScoreCalculator<Roster> {
+
+    private static final String CONSTRAINT_PACKAGE = "org.optaweb.employeerostering.service.solver";
+
+    private static final String REQUIRED_SKILL = "Required skill for a shift";
+    private static final String UNAVAILABLE_TIME_SLOT = "Unavailable time slot for an employee";
+    private static final String ONE_SHIFT_PER_DAY = "At most one shift assignment per day per employee";
+    private static final String NO_SHIFTS_WITHIN_TEN_HOURS = "No 2 shifts within 10 hours from each other";
+    private static final String ASSIGN_EVERY_SHIFT = "Assign every shift";
+    private static final String UNDESIRED_TIME_SLOT = "Undesired time slot for an employee";
+    private static final String DESIRED_TIME_SLOT = "Desired time slot for an employee";
+    private static final String NOT_ROTATION_EMPLOYEE = "Employee is not rotation employee";
+
+    private static final long DAY_IN_MINUTES = 24L * 60L;
+    private static final long TEN_HOURS_IN_MINUTES = 10L * 60L;
+    /**
+     * Two shifts that start on the same local date start at most this much before or after the start of
+     * that date in UTC, whatever their offsets.
+     */
+    private static final long MAXIMUM_OFFSET_IN_MINUTES = 18L * 60L;
+
+    private Roster roster;
+    private RosterConstraintConfiguration rosterConstraintConfiguration;
+    private Map<Employee, EmployeeState> employeeToStateMap;
+    // Never decreases, so the neighbour window of a shift never shrinks between its insert and its retract
+    private long maximumShiftDurationInMinutes;
+
+    private long hardScore;
+    private long mediumScore;
+    private long softScore;
+
+    @Override
+    public void resetWorkingSolution(Roster roster) {
+        resetWorkingSolution(roster, false);
+    }
+
+    @Override
+    public void resetWorkingSolution(Roster roster, boolean constraintMatchEnabled) {
+        // The constraint matches are calculated on demand, so constraintMatchEnabled is irrelevant
+        this.roster = roster;
+        rosterConstraintConfiguration = roster.getRosterConstraintConfiguration();
+        employeeToStateMap = new HashMap<>(roster.getEmployeeList().size());
+        hardScore = 0L;
+        mediumScore = 0L;
+        softScore = 0L;
+        maximumShiftDurationInMinutes = 0L;
+        for (Shift shift : roster.getShiftList()) {
+            maximumShiftDurationInMinutes = Math.max(maximumShiftDurationInMinutes, shift.getDurationInMinutes());
+        }
+        Map<Employee, List<EmployeeAvailability>> employeeToAvailabilityListMap = new HashMap<>();
+        for (EmployeeAvailability employeeAvailability : roster.getEmployeeAvailabilityList()) {
+            employeeToAvailabilityListMap.computeIfAbsent(employeeAvailability.getEmployee(), k -> new ArrayList<>())
+                    .add(employeeAvailability);
+        }
+        for (Map.Entry<Employee, List<EmployeeAvailability>> entry : employeeToAvailabilityListMap.entrySet()) {
+            getEmployeeState(entry.getKey()).availabilityIndex =
+                    new EmployeeAvailabilityIndex(entry.getKey(), entry.getValue());
+        }
+        for (Shift shift : roster.getShiftList()) {
+            insert(shift);
+        }
+    }
+
+    @Override
+    public void beforeEntityAdded(Object entity) {
+        // Do nothing
+    }
+
+    @Override
+    public void afterEntityAdded(Object entity) {
+        Shift shift = (Shift) entity;
+        maximumShiftDurationInMinutes = Math.max(maximumShiftDurationInMinutes, shift.getDurationInMinutes());
+        insert(shift);
+    }
+
+    @Override
+    public void beforeVariableChanged(Object entity, String variableName) {
+        retract((Shift) entity);
+    }
+
+    @Override
+    public void afterVariableChanged(Object entity, String variableName) {
+        insert((Shift) entity);
+    }
+
+    @Override
+    public void beforeEntityRemoved(Object entity) {
+        retract((Shift) entity);
+    }
+
+    @Override
+    public void afterEntityRemoved(Object entity) {
+        // Do nothing
+    }
+
+    private void insert(Shift shift) {
+        Employee employee = shift.getEmployee();
+        if (employee == null) {
+            penalize(rosterConstraintConfiguration.getAssignEveryShift(), 1L);
+            return;
+        }
+        EmployeeState employeeState = getEmployeeState(employee);
+        updateShiftMatches(shift, employeeState, 1L);
+        employeeState.addToTimeline(shift);
+        updateContractMinutes(shift, employeeState, 1L);
+    }
+
+    private void retract(Shift shift) {
+        Employee employee = shift.getEmployee();
+        if (employee == null) {
+            penalize(rosterConstraintConfiguration.getAssignEveryShift(), -1L);
+            return;
+        }
+        EmployeeState employeeState = employeeToStateMap.get(employee);
+        updateContractMinutes(shift, employeeState, -1L);
+        employeeState.removeFromTimeline(shift);
+        updateShiftMatches(shift, employeeState, -1L);
+    }
+
+    /**
+     * Adds or removes every match of an assigned shift that doesn't depend on period totals.
+     * @param employeeState never null, its timeline must not contain the shift
+     * @param sign 1 to add the matches, -1 to remove them
+     */
+    private void updateShiftMatches(Shift shift, EmployeeState employeeState, long sign) {
+        Employee employee = shift.getEmployee();
+        if (!employee.hasRequiredSkills(shift.getSpot())) {
+            penalize(rosterConstraintConfiguration.getRequiredSkill(), sign);
+        }
+        if (isNotRotationEmployee(shift)) {
+            penalize(rosterConstraintConfiguration.getNotRotationEmployee(),
+                     sign * rosterConstraintConfiguration.getRotationEmployeeMatchWeight());
+        }
+        for (EmployeeAvailability employeeAvailability : employeeState.availabilityIndex.getOverlappingList(
+                shift.getStartEpochMinute(), shift.getEndEpochMinute())) {
+            updateAvailabilityMatch(employeeAvailability, sign);
+        }
+        for (List<Shift> neighbourShiftList : getNeighbourShiftLists(employeeState, shift)) {
+            for (Shift otherShift : neighbourShiftList) {
+                if (otherShift.getStartDayIndex() == shift.getStartDayIndex()) {
+                    // Both (shift, otherShift) and (otherShift, shift) match
+                    penalize(rosterConstraintConfiguration.getOneShiftPerDay(), 2L * sign);
+                }
+                if (isWithinTenHours(shift, otherShift)) {
+                    penalize(rosterConstraintConfiguration.getNoShiftsWithinTenHours(), sign);
+                }
+                if (isWithinTenHours(otherShift, shift)) {
+                    penalize(rosterConstraintConfiguration.getNoShiftsWithinTenHours(), sign);
+                }
+            }
+        }
+    }
+
+    private void updateAvailabilityMatch(EmployeeAvailability employeeAvailability, long sign) {
+        switch (employeeAvailability.getState()) {
+            case UNAVAILABLE:
+                penalize(rosterConstraintConfiguration.getUnavailableTimeSlot(), sign);
+                break;
+            case UNDESIRED:
+                penalize(rosterConstraintConfiguration.getUndesiredTimeSlot(),
+                         sign * rosterConstraintConfiguration.getUndesiredTimeSlotWeight());
+                break;
+            case DESIRED:
+                reward(rosterConstraintConfiguration.getDesiredTimeSlot(),
+                       sign * rosterConstraintConfiguration.getDesiredTimeSlotWeight());
+                break;
+            default:
+                throw new IllegalStateException("The employeeAvailabilityState (" + employeeAvailability.getState()
+                                                        + ") is not implemented.");
+        }
+    }
+
+    /**
+     * Every shift of a period in which the employee works more than its contract maximum is penalized,
+     * so only the totals of the periods of the changed shift need to be updated.
+     */
+    private void updateContractMinutes(Shift shift, EmployeeState employeeState, long sign) {
+        Contract contract = shift.getEmployee().getContract();
+        long minutes = shift.getDurationInMinutes();
+        for (ContractMinutesViolation.Type type : ContractMinutesViolation.Type.values()) {
+            Integer maximumMinutes = getMaximumMinutes(contract, type);
+            if (maximumMinutes == null) {
+                continue;
+            }
+            HardMediumSoftLongScore constraintWeight = getContractMinutesConstraintWeight(type);
+            Map<Integer, PeriodTotal> periodToTotalMap = employeeState.typeToPeriodTotalMap.get(type);
+            int period = getPeriod(type, shift);
+            PeriodTotal periodTotal = periodToTotalMap.computeIfAbsent(period, k -> new PeriodTotal());
+            penalize(constraintWeight, -periodTotal.getMatchCount(maximumMinutes));
+            periodTotal.minutesWorked += sign * minutes;
+            periodTotal.shiftCount += sign;
+            penalize(constraintWeight, periodTotal.getMatchCount(maximumMinutes));
+            if (periodTotal.shiftCount == 0L) {
+                periodToTotalMap.remove(period);
+            }
+        }
+    }
+
+    @Override
+    public HardMediumSoftLongScore calculateScore() {
+        return HardMediumSoftLongScore.of(hardScore, mediumScore, softScore);
+    }
+
+    // ************************************************************************
+    // Constraint matches
+    // ************************************************************************
+
+    @Override
+    public Collection<ConstraintMatchTotal> getConstraintMatchTotals() {
+        Map<String, ConstraintMatchTotal> constraintNameToTotalMap = new LinkedHashMap<>();
+        for (Shift shift : roster.getShiftList()) {
+            Employee employee = shift.getEmployee();
+            if (employee == null) {
+                addConstraintMatch(constraintNameToTotalMap, ASSIGN_EVERY_SHIFT,
+                                   rosterConstraintConfiguration.getAssignEveryShift(), -1L, shift);
+                continue;
+            }
+            if (!employee.hasRequiredSkills(shift.getSpot())) {
+                addConstraintMatch(constraintNameToTotalMap, REQUIRED_SKILL,
+                                   rosterConstraintConfiguration.getRequiredSkill(), -1L, shift);
+            }
+            if (isNotRotationEmployee(shift)) {
+                addConstraintMatch(constraintNameToTotalMap, NOT_ROTATION_EMPLOYEE,
+                                   rosterConstraintConfiguration.getNotRotationEmployee(),
+                                   -rosterConstraintConfiguration.getRotationEmployeeMatchWeight(),
+                                   shift, rosterConstraintConfiguration);
+            }
+            EmployeeState employeeState = employeeToStateMap.get(employee);
+            for (EmployeeAvailability employeeAvailability : employeeState.availabilityIndex.getOverlappingList(
+                    shift.getStartEpochMinute(), shift.getEndEpochMinute())) {
+                addAvailabilityConstraintMatch(constraintNameToTotalMap, shift, employeeAvailability);
+            }
+            for (List<Shift> neighbourShiftList : getNeighbourShiftLists(employeeState, shift)) {
+                for (Shift otherShift : neighbourShiftList) {
+                    if (otherShift == shift) {
+                        continue;
+                    }
+                    if (otherShift.getStartDayIndex() == shift.getStartDayIndex()) {
+                        addConstraintMatch(constraintNameToTotalMap, ONE_SHIFT_PER_DAY,
+                                           rosterConstraintConfiguration.getOneShiftPerDay(), -1L,
+                                           shift, otherShift);
+                    }
+                    if (isWithinTenHours(shift, otherShift)) {
+                        addConstraintMatch(constraintNameToTotalMap, NO_SHIFTS_WITHIN_TEN_HOURS,
+                                           rosterConstraintConfiguration.getNoShiftsWithinTenHours(), -1L,
+                                           shift, otherShift);
+                    }
+                }
+            }
+            for (ContractMinutesViolation.Type type : ContractMinutesViolation.Type.values()) {
+                Integer maximumMinutes = getMaximumMinutes(employee.getContract(), type);
+                if (maximumMinutes == null) {
+                    continue;
+                }
+                int period = getPeriod(type, shift);
+                PeriodTotal periodTotal = employeeState.typeToPeriodTotalMap.get(type).get(period);
+                if (periodTotal.minutesWorked > maximumMinutes) {
+                    addConstraintMatch(constraintNameToTotalMap, getContractMinutesConstraintName(type),
+                                       getContractMinutesConstraintWeight(type), -1L,
+                                       employee, period, periodTotal.minutesWorked, shift);
+                }
+            }
+        }
+        return constraintNameToTotalMap.values();
+    }
+
+    private void addAvailabilityConstraintMatch(Map<String, ConstraintMatchTotal> constraintNameToTotalMap,
+                                                Shift shift, EmployeeAvailability employeeAvailability) {
+        switch (employeeAvailability.getState()) {
+            case UNAVAILABLE:
+                addConstraintMatch(constraintNameToTotalMap, UNAVAILABLE_TIME_SLOT,
+                                   rosterConstraintConfiguration.getUnavailableTimeSlot(), -1L,
+                                   shift, employeeAvailability);
+                break;
+            case UNDESIRED:
+                if (rosterConstraintConfiguration.getUndesiredTimeSlotWeight() != 0) {
+                    addConstraintMatch(constraintNameToTotalMap, UNDESIRED_TIME_SLOT,
+                                       rosterConstraintConfiguration.getUndesiredTimeSlot(),
+                                       -rosterConstraintConfiguration.getUndesiredTimeSlotWeight(),
+                                       shift, employeeAvailability, rosterConstraintConfiguration);
+                }
+                break;
+            case DESIRED:
+                if (rosterConstraintConfiguration.getDesiredTimeSlotWeight() != 0) {
+                    addConstraintMatch(constraintNameToTotalMap, DESIRED_TIME_SLOT,
+                                       rosterConstraintConfiguration.getDesiredTimeSlot(),
+                                       rosterConstraintConfiguration.getDesiredTimeSlotWeight(),
+                                       shift, employeeAvailability, rosterConstraintConfiguration);
+                }
+                break;
+            default:
+                throw new IllegalStateException("The employeeAvailabilityState (" + employeeAvailability.getState()
+                                                        + ") is not implemented.");
+        }
+    }
+
+    private void addConstraintMatch(Map<String, ConstraintMatchTotal> constraintNameToTotalMap,
+                                    String constraintName, HardMediumSoftLongScore constraintWeight,
+                                    long matchWeight, Object... justifications) {
+        // Like the DRL, which disables a constraint whose configured weight is zero
+        if (constraintWeight.isZero()) {
+            return;
+        }
+        ConstraintMatchTotal constraintMatchTotal = constraintNameToTotalMap.computeIfAbsent(
+                constraintName, k -> new ConstraintMatchTotal(CONSTRAINT_PACKAGE, constraintName, constraintWeight,
+                                                              HardMediumSoftLongScore.ZERO));
+        Score<?> matchScore = HardMediumSoftLongScore.of(constraintWeight.getHardScore() * matchWeight,
+                                                          constraintWeight.getMediumScore() * matchWeight,
+                                                          constraintWeight.getSoftScore() * matchWeight);
+        constraintMatchTotal.addConstraintMatch(Arrays.asList(justifications), matchScore);
+    }
+
+    @Override
+    public Map<Object, Indictment> getIndictmentMap() {
+        // Calculated automatically from the constraint matches
+        return null;
+    }
+
+    // ************************************************************************
+    // Helper methods
+    // ************************************************************************
+
+    private EmployeeState getEmployeeState(Employee employee) {
+        return employeeToStateMap.computeIfAbsent(employee, EmployeeState::new);
+    }
+
+    private void penalize(HardMediumSoftLongScore constraintWeight, long matchWeight) {
+        hardScore -= constraintWeight.getHardScore() * matchWeight;
+        mediumScore -= constraintWeight.getMediumScore() * matchWeight;
+        softScore -= constraintWeight.getSoftScore() * matchWeight;
+    }
+
+    private void reward(HardMediumSoftLongScore constraintWeight, long matchWeight) {
+        penalize(constraintWeight, -matchWeight);
+    }
+
+    private boolean isNotRotationEmployee(Shift shift) {
+        return shift.getRotationEmployee() != null &&
+                !shift.getEmployee().equals(shift.getRotationEmployee()) &&
+                rosterConstraintConfiguration.getRotationEmployeeMatchWeight() != 0;
+    }
+
+    /**
+     * Only the shifts that start in this window can start on the same local date as the shift
+     * or be within 10 hours of it, so the cost of a move doesn't grow with the length of the planning horizon.
+     * @return never null, the shifts of the timeline grouped by start
+     */
+    private Collection<List<Shift>> getNeighbourShiftLists(EmployeeState employeeState, Shift shift) {
+        long startOfDay = shift.getStartDayIndex() * DAY_IN_MINUTES;
+        long fromEpochMinute = Math.min(startOfDay - MAXIMUM_OFFSET_IN_MINUTES,
+                                        shift.getStartEpochMinute() - TEN_HOURS_IN_MINUTES
+                                                - maximumShiftDurationInMinutes);
+        long toEpochMinute = Math.max(startOfDay + DAY_IN_MINUTES + MAXIMUM_OFFSET_IN_MINUTES,
+                                      shift.getEndEpochMinute() + TEN_HOURS_IN_MINUTES);
+        return employeeState.shiftTimeline.subMap(fromEpochMinute, true, toEpochMinute, false).values();
+    }
+
+    private static boolean isWithinTenHours(Shift shift, Shift otherShift) {
+        return shift.getEndEpochMinute() <= otherShift.getEndEpochMinute() &&
+                otherShift.getStartEpochMinute() - shift.getEndEpochMinute() < TEN_HOURS_IN_MINUTES;
+    }
+
+    private int getPeriod(ContractMinutesViolation.Type type, Shift shift) {
+        switch (type) {
+            case DAY:
+                return shift.getStartDayIndex();
+            case WEEK:
+                return DateTimeUtils.getFirstDayOfWeek(rosterConstraintConfiguration.getWeekStartDay(),
+                                                       shift.getStartDayIndex());
+            case MONTH:
+                return shift.getStartMonthIndex();
+            case YEAR:
+                return shift.getStartYear();
+            default:
+                throw new IllegalStateException("The contractMinutesViolationType (" + type
+                                                        + ") is not implemented.");
+        }
+    }
+
+    private static Integer getMaximumMinutes(Contract contract, ContractMinutesViolation.Type type) {
+        switch (type) {
+            case DAY:
+                return contract.getMaximumMinutesPerDay();
+            case WEEK:
+                return contract.getMaximumMinutesPerWeek();
+            case MONTH:
+                return contract.getMaximumMinutesPerMonth();
+            case YEAR:
+                return contract.getMaximumMinutesPerYear();
+            default:
+                throw new IllegalStateException("The contractMinutesViolationType (" + type
+                                                        + ") is not implemented.");
+        }
+    }
+
+    private HardMediumSoftLongScore getContractMinutesConstraintWeight(ContractMinutesViolation.Type type) {
+        switch (type) {
+            case DAY:
+                return rosterConstraintConfiguration.getContractMaximumDailyMinutes();
+            case WEEK:
+                return rosterConstraintConfiguration.getContractMaximumWeeklyMinutes();
+            case MONTH:
+                return rosterConstraintConfiguration.getContractMaximumMonthlyMinutes();
+            case YEAR:
+                return rosterConstraintConfiguration.getContractMaximumYearlyMinutes();
+            default:
+                throw new IllegalStateException("The contractMinutesViolationType (" + type
+                                                        + ") is not implemented.");
+        }
+    }
+
+    private static String getContractMinutesConstraintName(ContractMinutesViolation.Type type) {
+        switch (type) {
+            case DAY:
+                return "Daily minutes must not exceed contract maximum";
+            case WEEK:
+                return "Weekly minutes must not exceed contract maximum";
+            case MONTH:
+                return "Monthly minutes must not exceed contract maximum";
+            case YEAR:
+                return "Yearly minutes must not exceed contract maximum";
+            default:
+                throw new IllegalStateException("The contractMinutesViolationType (" + type
+                                                        + ") is not implemented.");
+        }
+    }
+
+    private static class EmployeeState {
+
+        private EmployeeAvailabilityIndex availabilityIndex;
+        private final NavigableMap<Long, List<Shift>> shiftTimeline = new TreeMap<>();
+        private final Map<ContractMinutesViolation.Type, Map<Integer, PeriodTotal>> typeToPeriodTotalMap =
+                new EnumMap<>(ContractMinutesViolation.Type.class);
+
+        private EmployeeState(Employee employee) {
+            availabilityIndex = new EmployeeAvailabilityIndex(employee, Collections.emptyList());
+            for (ContractMinutesViolation.Type type : ContractMinutesViolation.Type.values()) {
+                typeToPeriodTotalMap.put(type, new HashMap<>());
+            }
+        }
+
+        private void addToTimeline(Shift shift) {
+            shiftTimeline.computeIfAbsent(shift.getStartEpochMinute(), k -> new ArrayList<>(1)).add(shift);
+        }
+
+        private void removeFromTimeline(Shift shift) {
+            List<Shift> shiftList = shiftTimeline.get(shift.getStartEpochMinute());
+            // By identity, because shifts that aren't persisted yet have no id and are equal to each other
+            for (int i = 0; i < shiftList.size(); i++) {
+                if (shiftList.get(i) == shift) {
+                    shiftList.remove(i);
+                    break;
+                }
+            }
+            if (shiftList.isEmpty()) {
+                shiftTimeline.remove(shift.getStartEpochMinute());
+            }
+        }
+    }
+
+    private static class PeriodTotal {
+
+        private long minutesWorked = 0L;
+        private long shiftCount = 0L;
+
+        /**
+         * @return the number of shifts of this period that are penalized
+         */
+        private long getMatchCount(int maximumMinutes) {
+            return (minutesWorked > maximumMinutes) ? shiftCount : 0L;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.optaweb.employeerostering.service.solver;
+
+import java.time.ZoneOffset;
+import java.util.Objects;
+
+import org.optaplanner.core.api.solver.ProblemFactChange;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
+import org.optaweb.employeerostering.domain.employee.Employee;
+import org.optaweb.employeerostering.domain.roster.Roster;
+import org.optaweb.employeerostering.domain.shift.Shift;
+import org.optaweb.employeerostering.domain.spot.Spot;
+
+/**
+ * Replaces a shift of the working roster of a running solver by its new state in the database.
+ * An updated shift is removed and added again, so every constraint sees it as a new shift.
+ */
+public class ShiftProblemFactChange implements ProblemFactChange<Roster> {
+
+    private final Long shiftId;
+    // A detached copy, null if the shift was deleted
+    private final Shift newShift;
+
+    /**
+     * @param shiftId never null
+     * @param newShift null if the shift was deleted
+     */
+    public ShiftProblemFactChange(Long shiftId, Shift newShift) {
+        this.shiftId = shiftId;
+        this.newShift = (newShift == null) ? null : newShift.inTimeZone(ZoneOffset.UTC);
+    }
+
+    public Long getShiftId() {
+        return shiftId;
+    }
+
+    /**
+     * @return null if the shift was deleted or is unassigned
+     */
+    public Long getEmployeeId() {
+        return (newShift == null || newShift.getEmployee() == null) ? null : newShift.getEmployee().getId();
+    }
+
+    @Override
+    public void doChange(ScoreDirector<Roster> scoreDirector) {
+        Roster roster = scoreDirector.getWorkingSolution();
+        roster.getShiftList().stream()
+                .filter(shift -> Objects.equals(shift.getId(), shiftId))
+                .findFirst()
+                .ifPresent(oldShift -> {
+                    scoreDirector.beforeEntityRemoved(oldShift);
+                    roster.getShiftList().remove(oldShift);
+                    scoreDirector.afterEntityRemoved(oldShift);
+                });
+        if (newShift != null) {
+            Spot spot = scoreDirector.lookUpWorkingObjectOrReturnNull(newShift.getSpot());
+            // Without the spot, which is newer than the working roster, the shift is only planned by the next solve
+            if (spot != null) {
+                Shift shift = newShift.inTimeZone(roster.getRosterState().getTimeZone());
+                shift.setSpot(spot);
+                shift.setRotationEmployee(lookUpEmployee(scoreDirector, newShift.getRotationEmployee()));
+                shift.setEmployee(lookUpEmployee(scoreDirector, newShift.getEmployee()));
+                scoreDirector.beforeEntityAdded(shift);
+                roster.getShiftList().add(shift);
+                scoreDirector.afterEntityAdded(shift);
+            }
+        }
+        scoreDirector.triggerVariableListeners();
+    }
+
+    private static Employee lookUpEmployee(ScoreDirector<Roster> scoreDirector, Employee employee) {
+        return (employee == null) ? null : scoreDirector.lookUpWorkingObjectOrReturnNull(employee);
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.optaweb.employeerostering.service.solver;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.optaplanner.core.config.solver.SolverConfig;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Spring properties of {@link WannabeSolverManager}, for example {@code optaweb.solver.parallelSolverCount=4}.
+ */
+@Component
+@ConfigurationProperties(prefix = "optaweb.solver")
+public class SolverManagerProperties {
+
+    /**
+     * How many tenants are solved at the same time.
+     * The other solve requests wait in first-in-first-out order until a solver thread is free.
+     * Defaults to all processors except 2, which are left for the REST threads.
+     */
+    private int parallelSolverCount = Math.max(1, Runtime.getRuntime().availableProcessors() - 2);
+
+    /**
+     * How many move threads each solver uses: {@value SolverConfig#MOVE_THREAD_COUNT_NONE},
+     * {@value SolverConfig#MOVE_THREAD_COUNT_AUTO} or a number.
+     * {@value SolverConfig#MOVE_THREAD_COUNT_AUTO} derives it from the roster size and the processors
+     * that the other solvers leave free.
+     * Defaults to {@value SolverConfig#MOVE_THREAD_COUNT_NONE}, because move threads compete with the other solvers
+     * and the REST threads for the same processors, so {@value SolverConfig#MOVE_THREAD_COUNT_AUTO} is opt-in.
+     */
+    private String moveThreadCount = SolverConfig.MOVE_THREAD_COUNT_NONE;
+
+    /**
+     * Overrides {@link #moveThreadCount} per tenant, for example {@code optaweb.solver.tenantMoveThreadCount.3=4}.
+     */
+    private Map<Integer, String> tenantMoveThreadCount = new HashMap<>();
+
+    /**
+     * Whether a re-solve starts from the tenant's last best roster in memory,
+     * reloading only the shifts that changed since, instead of reloading the whole roster from the database.
+     */
+    private boolean warmStart = true;
+
+    /**
+     * How long new best rosters are coalesced before the latest one is persisted,
+     * for example {@code 500ms}. Zero persists every new best roster immediately.
+     */
+    private Duration bestRosterPersistenceDelay = Duration.ofSeconds(1);
+
+    /**
+     * How long a request that needs the solver waits for it to warm up after startup,
+     * before it fails with HTTP 503 (Service Unavailable).
+     */
+    private Duration warmUpTimeout = Duration.ofSeconds(10);
+
+    /**
+     * For how many tenants the roster is kept in a live score director between requests,
+     * so a shift or employee availability change only recalculates the score and indictments it affects.
+     * The least recently used tenants are evicted first. Zero recalculates every request from scratch.
+     */
+    private int maximumLiveRosterCount = 10;
+
+    public int getParallelSolverCount() {
+        return parallelSolverCount;
+    }
+
+    public void setParallelSolverCount(int parallelSolverCount) {
+        if (parallelSolverCount < 1) {
+            throw new IllegalArgumentException("The parallelSolverCount (" + parallelSolverCount
+                                                       + ") must be at least 1.");
+        }
+        this.parallelSolverCount = parallelSolverCount;
+    }
+
+    public String getMoveThreadCount() {
+        return moveThreadCount;
+    }
+
+    public void setMoveThreadCount(String moveThreadCount) {
+        this.moveThreadCount = moveThreadCount;
+    }
+
+    public Map<Integer, String> getTenantMoveThreadCount() {
+        return tenantMoveThreadCount;
+    }
+
+    public void setTenantMoveThreadCount(Map<Integer, String> tenantMoveThreadCount) {
+        this.tenantMoveThreadCount = tenantMoveThreadCount;
+    }
+
+    public boolean isWarmStart() {
+        return warmStart;
+    }
+
+    public void setWarmStart(boolean warmStart) {
+        this.warmStart = warmStart;
+    }
+
+    public Duration getBestRosterPersistenceDelay() {
+        return bestRosterPersistenceDelay;
+    }
+
+    public void setBestRosterPersistenceDelay(Duration bestRosterPersistenceDelay) {
+        if (bestRosterPersistenceDelay.isNegative()) {
+            throw new IllegalArgumentException("The bestRosterPersistenceDelay (" + bestRosterPersistenceDelay
+                                                       + ") must not be negative.");
+        }
+        this.bestRosterPersistenceDelay = bestRosterPersistenceDelay;
+    }
+
+    public Duration getWarmUpTimeout() {
+        return warmUpTimeout;
+    }
+
+    public void setWarmUpTimeout(Duration warmUpTimeout) {
+        if (warmUpTimeout.isNegative()) {
+            throw new IllegalArgumentException("The warmUpTimeout (" + warmUpTimeout + ") must not be negative.");
+        }
+        this.warmUpTimeout = warmUpTimeout;
+    }
+
+    public int getMaximumLiveRosterCount() {
+        return maximumLiveRosterCount;
+    }
+
+    public void setMaximumLiveRosterCount(int maximumLiveRosterCount) {
+        if (maximumLiveRosterCount < 0) {
+            throw new IllegalArgumentException("The maximumLiveRosterCount (" + maximumLiveRosterCount
+                                                       + ") must not be negative.");
+        }
+        this.maximumLiveRosterCount = maximumLiveRosterCount;
+    }
+
+    public String getMoveThreadCount(Integer tenantId) {
+        return tenantMoveThreadCount.getOrDefault(tenantId, moveThreadCount);
+    }
+}
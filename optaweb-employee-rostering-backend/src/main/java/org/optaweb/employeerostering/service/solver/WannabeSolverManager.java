@@ -16,22 +16,48 @@
 
 package org.optaweb.employeerostering.service.solver;
 
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+import javax.annotation.PreDestroy;
+
+import org.kie.api.KieServices;
+import org.optaplanner.core.api.solver.ProblemFactChange;
 import org.optaplanner.core.api.solver.Solver;
 import org.optaplanner.core.api.solver.SolverFactory;
+import org.optaplanner.core.api.solver.event.SolverEventListener;
+import org.optaplanner.core.config.score.director.ScoreDirectorFactoryConfig;
+import org.optaplanner.core.config.solver.SolverConfig;
 import org.optaplanner.core.impl.score.director.ScoreDirector;
 import org.optaplanner.core.impl.score.director.ScoreDirectorFactory;
+import org.optaweb.employeerostering.domain.employee.EmployeeAvailability;
+import org.optaweb.employeerostering.domain.exception.ServiceUnavailableException;
 import org.optaweb.employeerostering.domain.roster.Roster;
+import org.optaweb.employeerostering.domain.shift.Shift;
+import org.optaweb.employeerostering.service.admin.SystemPropertiesRetriever;
+import org.optaweb.employeerostering.service.admin.SystemPropertiesRetriever.ScoreDirectorType;
 import org.optaweb.employeerostering.service.roster.RosterService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.CustomizableThreadFactory;
 import org.springframework.web.context.annotation.ApplicationScope;
 
 // TODO Replace by real SolverManager once it exists in optaplanner-core
@@ -41,44 +67,238 @@ public class WannabeSolverManager implements ApplicationRunner {
 
     public static final String SOLVER_CONFIG = "org/optaweb/employeerostering/service/solver/" +
             "employeeRosteringSolverConfig.xml";
+    public static final String CONSTRAINT_STREAMS_SOLVER_CONFIG = "org/optaweb/employeerostering/service/solver/" +
+            "employeeRosteringConstraintStreamsSolverConfig.xml";
+    public static final String INCREMENTAL_SOLVER_CONFIG = "org/optaweb/employeerostering/service/solver/" +
+            "employeeRosteringIncrementalSolverConfig.xml";
+    /**
+     * Compiled from employeeRosteringScoreRules.drl into an executable model by the kie-maven-plugin at build time,
+     * see META-INF/kmodule.xml.
+     */
+    public static final String KIE_SESSION_NAME = "employeeRosteringKieSession";
+
+    // Below this many shifts per move thread, the move thread synchronization costs more than it gains
+    private static final int MINIMUM_SHIFT_COUNT_PER_MOVE_THREAD = 100;
+    // Processors left for the REST threads
+    private static final int RESERVED_PROCESSOR_COUNT = 2;
 
     protected final transient Logger logger = LoggerFactory.getLogger(getClass());
 
     private SolverFactory<Roster> solverFactory;
+    private ConcurrentMap<String, SolverFactory<Roster>> moveThreadCountToSolverFactoryMap =
+            new ConcurrentHashMap<>();
+    // Idle solvers per moveThreadCount: building a solver compiles its score rules, so reuse them across tenants
+    private ConcurrentMap<String, Queue<Solver<Roster>>> moveThreadCountToIdleSolverQueueMap =
+            new ConcurrentHashMap<>();
+    // Shared by all score directors, so they all use the same compiled score rules
     private ScoreDirectorFactory<Roster> scoreDirectorFactory;
+    // Completes once the solver factory is set up, see run()
+    private final CompletableFuture<Void> warmUpFuture = new CompletableFuture<>();
 
-    // TODO Needs to default to size Math.max(1, Runtime.getRuntime().availableProcessors() - 2);
-    private ThreadPoolTaskExecutor taskExecutor;
+    // Solves at most parallelSolverCount tenants at the same time, the others wait in the FIFO queue
+    private ThreadPoolExecutor solverExecutor;
+    // Persists the best rosters of all tenants, coalesced per persistence delay
+    private ScheduledExecutorService persistenceExecutor;
 
+    private SolverManagerProperties solverManagerProperties;
     private RosterService rosterService;
 
     private ConcurrentMap<Integer, SolverStatus> tenantIdToSolverStateMap = new ConcurrentHashMap<>();
     private ConcurrentMap<Integer, Solver<Roster>> tenantIdToSolverMap = new ConcurrentHashMap<>();
+    private ConcurrentMap<Integer, BestRosterPersister> tenantIdToBestRosterPersisterMap = new ConcurrentHashMap<>();
+    private ConcurrentMap<Integer, FutureTask<Void>> tenantIdToSolverTaskMap = new ConcurrentHashMap<>();
+    // Tenants whose running solve request was terminated, possibly while it was still loading its roster
+    private Set<Integer> terminateRequestedTenantIdSet = ConcurrentHashMap.newKeySet();
+
+    // Warm start: the last best roster per tenant and what changed since
+    private ConcurrentMap<Integer, Roster> tenantIdToWarmStartRosterMap = new ConcurrentHashMap<>();
+    private ConcurrentMap<Integer, Set<Long>> tenantIdToChangedShiftIdSetMap = new ConcurrentHashMap<>();
+    private ConcurrentMap<Integer, Long> tenantIdToProblemFactChangeCountMap = new ConcurrentHashMap<>();
 
-    public WannabeSolverManager(ThreadPoolTaskExecutor taskExecutor, RosterService rosterService) {
-        this.taskExecutor = taskExecutor;
+    public WannabeSolverManager(SolverManagerProperties solverManagerProperties, RosterService rosterService) {
+        int parallelSolverCount = solverManagerProperties.getParallelSolverCount();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("optaweb-solver-");
+        threadFactory.setDaemon(true);
+        this.solverExecutor = new ThreadPoolExecutor(parallelSolverCount, parallelSolverCount,
+                                                     0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                                                     threadFactory);
+        CustomizableThreadFactory persistenceThreadFactory =
+                new CustomizableThreadFactory("optaweb-solver-persistence-");
+        persistenceThreadFactory.setDaemon(true);
+        this.persistenceExecutor = Executors.newSingleThreadScheduledExecutor(persistenceThreadFactory);
+        this.solverManagerProperties = solverManagerProperties;
         this.rosterService = rosterService;
     }
 
+    @PreDestroy
+    public void shutdown() {
+        solverExecutor.shutdownNow();
+        persistenceExecutor.shutdownNow();
+        tenantIdToSolverMap.values().forEach(Solver::terminateEarly);
+    }
+
     @Override
     public void run(ApplicationArguments args) {
-        setUpSolverFactory();
+        // Set up in the background, so the application serves requests right away.
+        // Not on the solverExecutor, so the warm-up doesn't take one of the parallelSolverCount solver threads.
+        // A solve request submitted in the meantime waits for it in solveNow().
+        Thread warmUpThread = new Thread(() -> {
+            try {
+                setUpSolverFactory();
+            } catch (Throwable e) {
+                logger.error("Error setting up the solver factory.", e);
+                warmUpFuture.completeExceptionally(e);
+            }
+        }, "optaweb-solver-warm-up");
+        warmUpThread.setDaemon(true);
+        warmUpThread.start();
+    }
+
+    /**
+     * @return true if the solver factory is set up, so solving and score calculation don't wait
+     */
+    public boolean isReady() {
+        return warmUpFuture.isDone() && !warmUpFuture.isCompletedExceptionally();
+    }
+
+    /**
+     * Waits at most {@link SolverManagerProperties#getWarmUpTimeout()} for the solver factory to be set up.
+     * @throws ServiceUnavailableException if it isn't set up by then
+     */
+    private void awaitWarmUp() {
+        if (isReady()) {
+            return;
+        }
+        try {
+            warmUpFuture.get(solverManagerProperties.getWarmUpTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new ServiceUnavailableException("The solver is still warming up.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted while the solver is warming up.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("The solver failed to warm up.", e.getCause());
+        }
     }
 
     public void setUpSolverFactory() {
-        solverFactory = SolverFactory.createFromXmlResource(SOLVER_CONFIG, WannabeSolverManager.class.getClassLoader());
-        scoreDirectorFactory = solverFactory.buildSolver().getScoreDirectorFactory();
+        long startTimeMillis = System.currentTimeMillis();
+        solverFactory = createSolverFactory();
+        moveThreadCountToSolverFactoryMap.clear();
+        moveThreadCountToIdleSolverQueueMap.clear();
+        Solver<Roster> solver = solverFactory.buildSolver();
+        scoreDirectorFactory = solver.getScoreDirectorFactory();
+        logger.info("Built the first solver in ({}) ms.", System.currentTimeMillis() - startTimeMillis);
+        // Don't waste the compiled score rules: the first solve() reuses this solver
+        returnSolver(SolverConfig.MOVE_THREAD_COUNT_NONE, solver);
+        warmUpFuture.complete(null);
     }
 
-    public void terminate(Integer tenantId) {
-        Solver<Roster> solver = tenantIdToSolverMap.get(tenantId);
+    private Solver<Roster> borrowSolver(String moveThreadCount) {
+        Solver<Roster> solver = getIdleSolverQueue(moveThreadCount).poll();
+        return (solver != null) ? solver : getSolverFactory(moveThreadCount).buildSolver();
+    }
 
-        if (null != solver) {
-            solver.terminateEarly();
-        } else {
+    private void returnSolver(String moveThreadCount, Solver<Roster> solver) {
+        // A problem fact change that arrived after solving ended must not leak into the next solve
+        if (!solver.isEveryProblemFactChangeProcessed()) {
+            return;
+        }
+        Queue<Solver<Roster>> idleSolverQueue = getIdleSolverQueue(moveThreadCount);
+        // No more idle solvers than can solve at the same time
+        if (idleSolverQueue.size() < solverManagerProperties.getParallelSolverCount()) {
+            idleSolverQueue.offer(solver);
+        }
+    }
+
+    private Queue<Solver<Roster>> getIdleSolverQueue(String moveThreadCount) {
+        return moveThreadCountToIdleSolverQueueMap.computeIfAbsent(moveThreadCount,
+                                                                   key -> new ConcurrentLinkedQueue<>());
+    }
+
+    private SolverFactory<Roster> getSolverFactory(String moveThreadCount) {
+        if (SolverConfig.MOVE_THREAD_COUNT_NONE.equals(moveThreadCount)) {
+            return solverFactory;
+        }
+        return moveThreadCountToSolverFactoryMap.computeIfAbsent(moveThreadCount, key -> {
+            SolverFactory<Roster> multithreadedSolverFactory = createSolverFactory();
+            multithreadedSolverFactory.getSolverConfig().setMoveThreadCount(key);
+            return multithreadedSolverFactory;
+        });
+    }
+
+    /**
+     * @param tenantId never null
+     * @param roster never null
+     * @return never null, {@link SolverConfig#MOVE_THREAD_COUNT_NONE} or a number
+     */
+    private String determineMoveThreadCount(Integer tenantId, Roster roster) {
+        String moveThreadCount = solverManagerProperties.getMoveThreadCount(tenantId);
+        if (!SolverConfig.MOVE_THREAD_COUNT_AUTO.equals(moveThreadCount)) {
+            return moveThreadCount;
+        }
+        // Share the free processors among the tenants that are solving right now, including this one
+        int freeProcessorCount = (Runtime.getRuntime().availableProcessors() - RESERVED_PROCESSOR_COUNT)
+                / Math.max(1, solverExecutor.getActiveCount());
+        int autoMoveThreadCount = Math.min(freeProcessorCount,
+                                           roster.getShiftList().size() / MINIMUM_SHIFT_COUNT_PER_MOVE_THREAD);
+        // A single move thread is slower than solving on the solver thread itself
+        return autoMoveThreadCount < 2 ? SolverConfig.MOVE_THREAD_COUNT_NONE : Integer.toString(autoMoveThreadCount);
+    }
+
+    private SolverFactory<Roster> createSolverFactory() {
+        ClassLoader classLoader = WannabeSolverManager.class.getClassLoader();
+        String solverConfig = determineSolverConfig();
+        if (!SOLVER_CONFIG.equals(solverConfig)) {
+            return SolverFactory.createFromXmlResource(solverConfig, classLoader);
+        }
+        // Load the precompiled rule base instead of compiling the scoreDrl at runtime.
+        // The classpath KieContainer builds its KieBase once, so every SolverFactory shares it.
+        SolverFactory<Roster> drlSolverFactory = SolverFactory.createFromKieContainerXmlResource(
+                KieServices.get().getKieClasspathContainer(classLoader), solverConfig);
+        ScoreDirectorFactoryConfig scoreDirectorFactoryConfig =
+                drlSolverFactory.getSolverConfig().getScoreDirectorFactoryConfig();
+        scoreDirectorFactoryConfig.setScoreDrlList(null);
+        scoreDirectorFactoryConfig.setKsessionName(KIE_SESSION_NAME);
+        return drlSolverFactory;
+    }
+
+    public static String determineSolverConfig() {
+        ScoreDirectorType scoreDirectorType = SystemPropertiesRetriever.determineScoreDirectorType();
+        switch (scoreDirectorType) {
+            case DRL:
+                return SOLVER_CONFIG;
+            case CONSTRAINT_STREAMS:
+                return CONSTRAINT_STREAMS_SOLVER_CONFIG;
+            case INCREMENTAL:
+                return INCREMENTAL_SOLVER_CONFIG;
+            default:
+                throw new IllegalStateException("The scoreDirectorType (" + scoreDirectorType
+                                                        + ") is not implemented.");
+        }
+    }
+
+    public void terminate(Integer tenantId) {
+        FutureTask<Void> solverTask = tenantIdToSolverTaskMap.get(tenantId);
+        // Only succeeds if the solve request is still waiting in the queue
+        if (solverTask != null && solverTask.cancel(false)) {
+            solverExecutor.remove(solverTask);
+            tenantIdToSolverTaskMap.remove(tenantId, solverTask);
+            tenantIdToSolverStateMap.put(tenantId, SolverStatus.TERMINATED);
+            logger.info("Unscheduled solver for tenantId ({}).", tenantId);
+            return;
+        }
+        if (solverTask == null) {
             throw new IllegalStateException("The roster with tenantId (" + tenantId
                                                     + ") is not being solved currently.");
         }
+        // The solve request might still be loading its roster, so it checks this before it starts solving
+        terminateRequestedTenantIdSet.add(tenantId);
+        Solver<Roster> solver = tenantIdToSolverMap.get(tenantId);
+        if (solver != null) {
+            solver.terminateEarly();
+        }
+        logger.info("Terminating solver for tenantId ({}).", tenantId);
     }
 
     public CountDownLatch solve(Integer tenantId) {
@@ -93,34 +313,173 @@ public class WannabeSolverManager implements ApplicationRunner {
         });
 
         final CountDownLatch solvingEndedLatch = new CountDownLatch(1);
-        taskExecutor.execute(() -> {
-            try {
-                Solver<Roster> solver = solverFactory.buildSolver();
-                tenantIdToSolverMap.put(tenantId, solver);
-                solver.addEventListener(event -> {
-                    if (event.isEveryProblemFactChangeProcessed()) {
-                        logger.info("  New best solution found for tenantId ({}).", tenantId);
-                        Roster newBestRoster = event.getNewBestSolution();
-                        // TODO if this throws an OptimisticLockingException, does it kill the solver?
-                        rosterService.updateShiftsOfRoster(newBestRoster);
+        FutureTask<Void> solverTask = new FutureTask<Void>(() -> solveNow(tenantId), null) {
+            @Override
+            protected void done() {
+                // Also called when the solve request is cancelled before it started
+                solvingEndedLatch.countDown();
+            }
+        };
+        terminateRequestedTenantIdSet.remove(tenantId);
+        tenantIdToSolverTaskMap.put(tenantId, solverTask);
+        solverExecutor.execute(solverTask);
+        return solvingEndedLatch;
+    }
+
+    private void solveNow(Integer tenantId) {
+        try {
+            warmUpFuture.join();
+            long problemFactChangeCount = tenantIdToProblemFactChangeCountMap.getOrDefault(tenantId, 0L);
+            Roster roster = loadRoster(tenantId);
+            String moveThreadCount = determineMoveThreadCount(tenantId, roster);
+            logger.info("Solving tenantId ({}) with moveThreadCount ({}).", tenantId, moveThreadCount);
+            Solver<Roster> solver = borrowSolver(moveThreadCount);
+            BestRosterPersister bestRosterPersister = new BestRosterPersister(
+                    tenantId, roster, rosterService, persistenceExecutor,
+                    solverManagerProperties.getBestRosterPersistenceDelay());
+            // Put before the solver, so every problem fact change passes through the persister
+            tenantIdToBestRosterPersisterMap.put(tenantId, bestRosterPersister);
+            tenantIdToSolverMap.put(tenantId, solver);
+            Roster bestRoster;
+            if (terminateRequestedTenantIdSet.contains(tenantId)) {
+                logger.info("Terminated solver for tenantId ({}) before it started.", tenantId);
+                bestRoster = roster;
+            } else {
+                SolverEventListener<Roster> bestRosterListener = event -> {
+                    // solve() resets a terminateEarly() call that came just before it started
+                    if (terminateRequestedTenantIdSet.contains(tenantId)) {
+                        solver.terminateEarly();
                     }
-                });
-                Roster roster = rosterService.buildRoster(tenantId); // TODO rename to rosterService.loadRoster
-                try {
-                    tenantIdToSolverStateMap.put(tenantId, SolverStatus.SOLVING);
-                    // TODO No need to store the returned roster because the SolverEventListener already does it?
-                    solver.solve(roster);
-                    solvingEndedLatch.countDown();
-                } finally {
-                    tenantIdToSolverMap.remove(tenantId);
-                    tenantIdToSolverStateMap.put(tenantId, SolverStatus.TERMINATED);
-                }
-            } catch (Throwable e) {
-                // TODO handle errors through Thread'sExceptionHandler
-                logger.error("Error solving for tenantId (" + tenantId + ").", e);
+                    logger.debug("  New best solution found for tenantId ({}).", tenantId);
+                    bestRosterPersister.onNewBestRoster(event);
+                };
+                solver.addEventListener(bestRosterListener);
+                tenantIdToSolverStateMap.put(tenantId, SolverStatus.SOLVING);
+                bestRoster = solver.solve(roster);
+                solver.removeEventListener(bestRosterListener);
+            }
+            tenantIdToSolverMap.remove(tenantId);
+            // A solver that failed is not returned, so it can't be in an inconsistent state
+            returnSolver(moveThreadCount, solver);
+            bestRosterPersister.flush();
+            // Only keep the best roster if no problem fact changed while solving
+            if (solverManagerProperties.isWarmStart() && problemFactChangeCount
+                    == tenantIdToProblemFactChangeCountMap.getOrDefault(tenantId, 0L)) {
+                tenantIdToWarmStartRosterMap.put(tenantId, bestRoster);
+            }
+        } catch (Throwable e) {
+            // TODO handle errors through Thread'sExceptionHandler
+            logger.error("Error solving for tenantId (" + tenantId + ").", e);
+        } finally {
+            tenantIdToSolverMap.remove(tenantId);
+            tenantIdToBestRosterPersisterMap.remove(tenantId);
+            tenantIdToSolverTaskMap.remove(tenantId);
+            terminateRequestedTenantIdSet.remove(tenantId);
+            tenantIdToSolverStateMap.put(tenantId, SolverStatus.TERMINATED);
+        }
+    }
+
+    private Roster loadRoster(Integer tenantId) {
+        // Changes recorded from now on are applied by the next solve() call
+        Set<Long> changedShiftIdSet = tenantIdToChangedShiftIdSetMap.remove(tenantId);
+        Roster warmStartRoster = tenantIdToWarmStartRosterMap.remove(tenantId);
+        if (warmStartRoster != null) {
+            Roster roster = (changedShiftIdSet == null) ? warmStartRoster
+                    : rosterService.refreshShiftsOfRoster(warmStartRoster, changedShiftIdSet);
+            if (roster != null) {
+                logger.info("Warm starting tenantId ({}) with ({}) changed shifts.", tenantId,
+                            (changedShiftIdSet == null) ? 0 : changedShiftIdSet.size());
+                return roster;
+            }
+        }
+        return rosterService.buildRoster(tenantId); // TODO rename to rosterService.loadRoster
+    }
+
+    /**
+     * Call this after a shift of the tenant is created, updated or deleted,
+     * so a running solver takes it into account and the next warm start reloads it.
+     * @param tenantId never null
+     * @param shiftId never null
+     * @param shift null if the shift was deleted
+     */
+    public void onShiftChanged(Integer tenantId, Long shiftId, Shift shift) {
+        ShiftProblemFactChange shiftProblemFactChange = new ShiftProblemFactChange(shiftId, shift);
+        addProblemFactChangeAfterCommit(tenantId, shiftProblemFactChange);
+        rosterService.updateRosterSnapshot(tenantId, shiftProblemFactChange);
+        // Without a warm start roster, now or after the current solve, the next solve() reloads everything anyway
+        if (!tenantIdToWarmStartRosterMap.containsKey(tenantId) && !tenantIdToSolverTaskMap.containsKey(tenantId)) {
+            return;
+        }
+        tenantIdToChangedShiftIdSetMap.computeIfAbsent(tenantId, k -> ConcurrentHashMap.newKeySet()).add(shiftId);
+    }
+
+    /**
+     * Call this after an employee availability of the tenant is created, updated or deleted,
+     * so a running solver takes it into account.
+     * @param tenantId never null
+     * @param employeeAvailabilityId never null
+     * @param employeeAvailability null if the employee availability was deleted
+     */
+    public void onEmployeeAvailabilityChanged(Integer tenantId, Long employeeAvailabilityId,
+                                              EmployeeAvailability employeeAvailability) {
+        EmployeeAvailabilityProblemFactChange employeeAvailabilityProblemFactChange =
+                new EmployeeAvailabilityProblemFactChange(employeeAvailabilityId, employeeAvailability);
+        addProblemFactChangeAfterCommit(tenantId, employeeAvailabilityProblemFactChange);
+        rosterService.updateRosterSnapshot(tenantId, employeeAvailabilityProblemFactChange);
+        // The running solver might terminate before it processes the change, so don't trust its best roster
+        discardWarmStartRoster(tenantId);
+    }
+
+    /**
+     * Call this after anything else than a shift or an employee availability of the tenant changes,
+     * such as a skill, spot, employee, contract or the roster state,
+     * so the next solve() call reloads the whole roster.
+     * A running solver doesn't see such a change.
+     * @param tenantId never null
+     */
+    public void onProblemFactChanged(Integer tenantId) {
+        discardWarmStartRoster(tenantId);
+        rosterService.invalidateRosterSnapshot(tenantId);
+    }
+
+    private void discardWarmStartRoster(Integer tenantId) {
+        tenantIdToProblemFactChangeCountMap.merge(tenantId, 1L, Long::sum);
+        tenantIdToWarmStartRosterMap.remove(tenantId);
+    }
+
+    /**
+     * Forwards the change to the tenant's running solver, if any,
+     * once the current transaction commits, so the change is never ahead of the database.
+     */
+    private void addProblemFactChangeAfterCommit(Integer tenantId, ProblemFactChange<Roster> problemFactChange) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            addProblemFactChange(tenantId, problemFactChange);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                addProblemFactChange(tenantId, problemFactChange);
             }
         });
-        return solvingEndedLatch;
+    }
+
+    private void addProblemFactChange(Integer tenantId, ProblemFactChange<Roster> problemFactChange) {
+        Solver<Roster> solver = tenantIdToSolverMap.get(tenantId);
+        if (solver != null) {
+            logger.info("Adding problem fact change ({}) to the solver for tenantId ({}).",
+                        problemFactChange.getClass().getSimpleName(), tenantId);
+            BestRosterPersister bestRosterPersister = tenantIdToBestRosterPersisterMap.get(tenantId);
+            if (bestRosterPersister != null) {
+                bestRosterPersister.addProblemFactChange(solver, problemFactChange);
+            } else {
+                solver.addProblemFactChange(problemFactChange);
+            }
+        }
+    }
+
+    public SolverStatus getSolverStatus(Integer tenantId) {
+        return tenantIdToSolverStateMap.getOrDefault(tenantId, SolverStatus.TERMINATED);
     }
 
     public Roster getRoster(final Integer tenantId) {
@@ -129,6 +488,7 @@ public class WannabeSolverManager implements ApplicationRunner {
     }
 
     public ScoreDirector<Roster> getScoreDirector() {
+        awaitWarmUp();
         return scoreDirectorFactory.buildScoreDirector();
     }
 }
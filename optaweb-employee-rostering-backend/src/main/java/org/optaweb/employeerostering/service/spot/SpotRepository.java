@@ -29,6 +29,11 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface SpotRepository extends JpaRepository<Spot, Long> {
 
+    @Query("select s from Spot s " +
+            "where s.tenantId = :tenantId " +
+            "order by LOWER(s.name)")
+    List<Spot> findAllByTenantId(@Param("tenantId") Integer tenantId);
+
     @Query("select s from Spot s " +
             "where s.tenantId = :tenantId " +
             "order by LOWER(s.name)")
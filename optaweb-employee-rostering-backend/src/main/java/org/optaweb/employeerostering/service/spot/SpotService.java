@@ -24,7 +24,7 @@ import javax.persistence.EntityNotFoundException;
 import org.optaweb.employeerostering.domain.spot.Spot;
 import org.optaweb.employeerostering.domain.spot.view.SpotView;
 import org.optaweb.employeerostering.service.common.AbstractRestService;
-import org.springframework.data.domain.PageRequest;
+import org.optaweb.employeerostering.service.solver.WannabeSolverManager;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -33,8 +33,11 @@ public class SpotService extends AbstractRestService {
 
     private final SpotRepository spotRepository;
 
-    public SpotService(SpotRepository spotRepository) {
+    private final WannabeSolverManager solverManager;
+
+    public SpotService(SpotRepository spotRepository, WannabeSolverManager solverManager) {
         this.spotRepository = spotRepository;
+        this.solverManager = solverManager;
     }
 
     public Spot convertFromView(Integer tenantId, SpotView spotView) {
@@ -47,7 +50,7 @@ public class SpotService extends AbstractRestService {
 
     @Transactional
     public List<Spot> getSpotList(Integer tenantId) {
-        return spotRepository.findAllByTenantId(tenantId, PageRequest.of(0, Integer.MAX_VALUE));
+        return spotRepository.findAllByTenantId(tenantId);
     }
 
     @Transactional
@@ -69,6 +72,7 @@ public class SpotService extends AbstractRestService {
         }
 
         validateTenantIdParameter(tenantId, spotOptional.get());
+        solverManager.onProblemFactChanged(tenantId);
         spotRepository.deleteById(id);
         return true;
     }
@@ -76,6 +80,7 @@ public class SpotService extends AbstractRestService {
     @Transactional
     public Spot createSpot(Integer tenantId, SpotView spotView) {
         Spot spot = convertFromView(tenantId, spotView);
+        solverManager.onProblemFactChanged(tenantId);
         return spotRepository.save(spot);
     }
 
@@ -94,6 +99,7 @@ public class SpotService extends AbstractRestService {
 
         oldSpot.setName(newSpot.getName());
         oldSpot.setRequiredSkillSet(newSpot.getRequiredSkillSet());
+        solverManager.onProblemFactChanged(tenantId);
         return spotRepository.save(oldSpot);
     }
 }
@@ -34,6 +34,7 @@ import org.optaweb.employeerostering.service.roster.RosterStateRepository;
 import org.optaweb.employeerostering.service.rotation.ShiftTemplateRepository;
 import org.optaweb.employeerostering.service.shift.ShiftRepository;
 import org.optaweb.employeerostering.service.skill.SkillRepository;
+import org.optaweb.employeerostering.service.solver.WannabeSolverManager;
 import org.optaweb.employeerostering.service.spot.SpotRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -59,6 +60,8 @@ public class TenantService extends AbstractRestService {
 
     private final SkillRepository skillRepository;
 
+    private final WannabeSolverManager solverManager;
+
     public TenantService(TenantRepository tenantRepository,
                          RosterConstraintConfigurationRepository rosterConstraintConfigurationRepository,
                          RosterStateRepository rosterStateRepository,
@@ -67,7 +70,8 @@ public class TenantService extends AbstractRestService {
                          ShiftTemplateRepository shiftTemplateRepository,
                          EmployeeRepository employeeRepository,
                          SpotRepository spotRepository,
-                         SkillRepository skillRepository) {
+                         SkillRepository skillRepository,
+                         WannabeSolverManager solverManager) {
         this.tenantRepository = tenantRepository;
         this.rosterConstraintConfigurationRepository = rosterConstraintConfigurationRepository;
         this.rosterStateRepository = rosterStateRepository;
@@ -77,6 +81,7 @@ public class TenantService extends AbstractRestService {
         this.employeeRepository = employeeRepository;
         this.spotRepository = spotRepository;
         this.skillRepository = skillRepository;
+        this.solverManager = solverManager;
     }
 
     // ************************************************************************
@@ -131,6 +136,7 @@ public class TenantService extends AbstractRestService {
         // Employee, Spot, Skill,
         // RosterConstraintConfiguration, RosterState
 
+        solverManager.onProblemFactChanged(id);
         shiftRepository.deleteForTenant(id);
         employeeAvailabilityRepository.deleteForTenant(id);
         shiftTemplateRepository.deleteForTenant(id);
@@ -199,6 +205,7 @@ public class TenantService extends AbstractRestService {
                                                                     .getDesiredTimeSlot());
         oldRosterConstraintConfiguration.setNotRotationEmployee(rosterConstraintConfigurationView
                                                                         .getNotRotationEmployee());
+        solverManager.onProblemFactChanged(rosterConstraintConfigurationView.getTenantId());
         return rosterConstraintConfigurationRepository.save(oldRosterConstraintConfiguration);
     }
 
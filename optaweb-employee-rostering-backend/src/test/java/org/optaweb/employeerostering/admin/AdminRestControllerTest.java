@@ -18,6 +18,8 @@ package org.optaweb.employeerostering.admin;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.optaweb.employeerostering.service.roster.RosterGenerator;
+import org.optaweb.employeerostering.service.solver.WannabeSolverManager;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -36,15 +38,34 @@ public class AdminRestControllerTest {
     @Autowired
     private TestRestTemplate restTemplate;
 
+    @Autowired
+    private RosterGenerator rosterGenerator;
+
+    @Autowired
+    private WannabeSolverManager solverManager;
+
     private final String adminPathURI = "http://localhost:8080/rest/admin/";
 
     private ResponseEntity<Void> resetApplication() {
         return restTemplate.postForEntity(adminPathURI + "reset", null, Void.class);
     }
 
+    private ResponseEntity<Void> isReady() {
+        return restTemplate.getForEntity(adminPathURI + "ready", Void.class);
+    }
+
     @Test
     public void resetApplicationTest() {
         ResponseEntity<Void> resetResponse = resetApplication();
         assertThat(resetResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
     }
+
+    @Test
+    public void readyTest() {
+        rosterGenerator.awaitDemoData();
+        // Waits for the solver warm-up
+        solverManager.getScoreDirector().close();
+        ResponseEntity<Void> readyResponse = isReady();
+        assertThat(readyResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
 }
@@ -21,6 +21,7 @@ import javax.persistence.RollbackException;
 
 import org.junit.Test;
 import org.optaweb.employeerostering.ExceptionDataMapper;
+import org.optaweb.employeerostering.domain.exception.ServiceUnavailableException;
 
 import static org.junit.Assert.assertEquals;
 
@@ -43,5 +44,7 @@ public class ExceptionDataMapperTest {
                      tested.getExceptionDataForExceptionClass(EntityNotFoundException.class));
         assertEquals(ExceptionDataMapper.ExceptionData.GENERIC_EXCEPTION,
                      tested.getExceptionDataForExceptionClass(RollbackException.class));
+        assertEquals(ExceptionDataMapper.ExceptionData.SERVICE_UNAVAILABLE,
+                     tested.getExceptionDataForExceptionClass(ServiceUnavailableException.class));
     }
 }
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaweb.employeerostering.rotation;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.optaweb.employeerostering.domain.rotation.ShiftTemplate;
+import org.optaweb.employeerostering.domain.shift.Shift;
+import org.optaweb.employeerostering.domain.spot.Spot;
+import org.optaweb.employeerostering.service.rotation.RotationExpander;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class RotationExpanderTest {
+
+    private static final int ROTATION_LENGTH = 7;
+
+    @Test
+    public void testSameShiftsAsCreateShiftOnDate() {
+        // Crosses both daylight saving time transitions of 2020, which happen at 02:00
+        ZoneId zoneId = ZoneId.of("America/New_York");
+        Spot spot = new Spot(0, "Spot", Collections.emptySet());
+        List<ShiftTemplate> shiftTemplateList = Arrays.asList(
+                new ShiftTemplate(0, spot, 0, LocalTime.of(9, 0), 0, LocalTime.of(17, 0)),
+                new ShiftTemplate(0, spot, 0, LocalTime.of(22, 0), 1, LocalTime.of(6, 0)),
+                new ShiftTemplate(0, spot, 3, LocalTime.of(2, 30), 3, LocalTime.of(10, 0)),
+                // Wraps around in the rotation
+                new ShiftTemplate(0, spot, 6, LocalTime.of(20, 0), 0, LocalTime.of(4, 0)));
+        LocalDate firstDate = LocalDate.of(2020, 1, 1);
+        int firstDayOffset = 2;
+        int dayCount = 366;
+
+        List<Shift> shiftList = new RotationExpander(shiftTemplateList, ROTATION_LENGTH, zoneId)
+                .createShifts(firstDate, firstDayOffset, dayCount);
+
+        int index = 0;
+        for (int day = 0; day < dayCount; day++) {
+            int dayOffset = (firstDayOffset + day) % ROTATION_LENGTH;
+            for (ShiftTemplate shiftTemplate : shiftTemplateList) {
+                if (shiftTemplate.getStartDayOffset() != dayOffset) {
+                    continue;
+                }
+                Shift expectedShift = shiftTemplate.createShiftOnDate(firstDate.plusDays(day), ROTATION_LENGTH,
+                                                                      zoneId, false);
+                Shift shift = shiftList.get(index);
+                assertEquals(expectedShift.getStartDateTime(), shift.getStartDateTime());
+                assertEquals(expectedShift.getEndDateTime(), shift.getEndDateTime());
+                assertSame(spot, shift.getSpot());
+                index++;
+            }
+        }
+        assertEquals(index, shiftList.size());
+    }
+}
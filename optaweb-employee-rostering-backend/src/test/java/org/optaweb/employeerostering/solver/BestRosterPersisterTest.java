@@ -0,0 +1,148 @@
+/*
+ * Copyright 2020 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.optaweb.employeerostering.solver;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.optaplanner.core.api.score.buildin.hardmediumsoftlong.HardMediumSoftLongScore;
+import org.optaplanner.core.api.solver.ProblemFactChange;
+import org.optaplanner.core.api.solver.Solver;
+import org.optaplanner.core.api.solver.event.BestSolutionChangedEvent;
+import org.optaweb.employeerostering.domain.employee.Employee;
+import org.optaweb.employeerostering.domain.roster.Roster;
+import org.optaweb.employeerostering.domain.shift.Shift;
+import org.optaweb.employeerostering.domain.spot.Spot;
+import org.optaweb.employeerostering.service.roster.RosterService;
+import org.optaweb.employeerostering.service.solver.BestRosterPersister;
+import org.optaweb.employeerostering.service.solver.ShiftProblemFactChange;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BestRosterPersisterTest {
+
+    private static final Integer TENANT_ID = 0;
+    private static final Long SHIFT_ID = 1L;
+    private static final Long EMPLOYEE_ID = 2L;
+    private static final Long OTHER_EMPLOYEE_ID = 3L;
+    private static final Long SPOT_ID = 4L;
+    private static final OffsetDateTime START_DATE_TIME = OffsetDateTime.of(2020, 1, 1, 9, 0, 0, 0, ZoneOffset.UTC);
+
+    private RosterService rosterService;
+    private Solver<Roster> solver;
+    private ScheduledExecutorService persistenceExecutor;
+    private BestRosterPersister bestRosterPersister;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        rosterService = mock(RosterService.class);
+        solver = mock(Solver.class);
+        when(solver.isEveryProblemFactChangeProcessed()).thenReturn(true);
+        persistenceExecutor = Executors.newSingleThreadScheduledExecutor();
+        // Long enough that only the explicit flush() persists
+        bestRosterPersister = new BestRosterPersister(TENANT_ID, buildRoster(null), rosterService,
+                                                      persistenceExecutor, Duration.ofHours(1L));
+    }
+
+    @After
+    public void tearDown() {
+        persistenceExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testFlushPersistsBestRoster() {
+        bestRosterPersister.onNewBestRoster(buildBestSolutionChangedEvent(EMPLOYEE_ID));
+        bestRosterPersister.flush();
+        verify(rosterService).updateEmployeesOfShifts(TENANT_ID, Collections.singletonMap(SHIFT_ID, EMPLOYEE_ID));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testEditWhileFlushIsPendingIsNotOverwritten() {
+        // The solver found a best roster before the user edited the shift
+        bestRosterPersister.onNewBestRoster(buildBestSolutionChangedEvent(EMPLOYEE_ID));
+        ProblemFactChange<Roster> problemFactChange = mock(ProblemFactChange.class);
+        bestRosterPersister.addProblemFactChange(solver, problemFactChange);
+        verify(solver).addProblemFactChange(problemFactChange);
+
+        bestRosterPersister.flush();
+        verify(rosterService, never()).updateEmployeesOfShifts(anyInt(), anyMap());
+
+        // A best roster that includes the edit is persisted again
+        bestRosterPersister.onNewBestRoster(buildBestSolutionChangedEvent(EMPLOYEE_ID));
+        bestRosterPersister.flush();
+        verify(rosterService).updateEmployeesOfShifts(eq(TENANT_ID), any());
+    }
+
+    @Test
+    public void testRevertOfEditToPersistedEmployeeIsPersisted() {
+        bestRosterPersister.onNewBestRoster(buildBestSolutionChangedEvent(EMPLOYEE_ID));
+        bestRosterPersister.flush();
+        verify(rosterService).updateEmployeesOfShifts(TENANT_ID, Collections.singletonMap(SHIFT_ID, EMPLOYEE_ID));
+
+        // The user reassigns the shift, then the solver assigns it back to the employee it had before the edit
+        Shift editedShift = buildRoster(OTHER_EMPLOYEE_ID).getShiftList().get(0);
+        bestRosterPersister.addProblemFactChange(solver, new ShiftProblemFactChange(SHIFT_ID, editedShift));
+        bestRosterPersister.onNewBestRoster(buildBestSolutionChangedEvent(EMPLOYEE_ID));
+        bestRosterPersister.flush();
+        verify(rosterService, times(2))
+                .updateEmployeesOfShifts(TENANT_ID, Collections.singletonMap(SHIFT_ID, EMPLOYEE_ID));
+    }
+
+    @Test
+    public void testBestRosterWithUnprocessedProblemFactChangeIsNotPersisted() {
+        when(solver.isEveryProblemFactChangeProcessed()).thenReturn(false);
+        bestRosterPersister.onNewBestRoster(buildBestSolutionChangedEvent(EMPLOYEE_ID));
+        bestRosterPersister.flush();
+        verify(rosterService, never()).updateEmployeesOfShifts(anyInt(), anyMap());
+    }
+
+    private BestSolutionChangedEvent<Roster> buildBestSolutionChangedEvent(Long employeeId) {
+        return new BestSolutionChangedEvent<>(solver, 0L, buildRoster(employeeId), HardMediumSoftLongScore.ZERO);
+    }
+
+    private static Roster buildRoster(Long employeeId) {
+        Spot spot = new Spot(TENANT_ID, "Spot", Collections.emptySet());
+        spot.setId(SPOT_ID);
+        Shift shift = new Shift(TENANT_ID, spot, START_DATE_TIME, START_DATE_TIME.plusHours(8L));
+        shift.setId(SHIFT_ID);
+        if (employeeId != null) {
+            Employee employee = new Employee();
+            employee.setId(employeeId);
+            shift.setEmployee(employee);
+        }
+        Roster roster = new Roster();
+        roster.setShiftList(Collections.singletonList(shift));
+        return roster;
+    }
+}
@@ -16,27 +16,52 @@
 
 package org.optaweb.employeerostering.solver;
 
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.optaplanner.core.api.score.Score;
 import org.optaplanner.core.api.score.buildin.hardmediumsoftlong.HardMediumSoftLongScore;
+import org.optaplanner.core.api.score.constraint.Indictment;
 import org.optaplanner.core.impl.score.director.ScoreDirector;
+import org.optaweb.employeerostering.domain.contract.Contract;
+import org.optaweb.employeerostering.domain.employee.Employee;
+import org.optaweb.employeerostering.domain.employee.EmployeeAvailability;
 import org.optaweb.employeerostering.domain.roster.Roster;
+import org.optaweb.employeerostering.domain.shift.Shift;
+import org.optaweb.employeerostering.service.contract.ContractRepository;
+import org.optaweb.employeerostering.service.employee.EmployeeAvailabilityRepository;
+import org.optaweb.employeerostering.service.employee.EmployeeRepository;
 import org.optaweb.employeerostering.service.roster.RosterGenerator;
 import org.optaweb.employeerostering.service.roster.RosterService;
+import org.optaweb.employeerostering.service.roster.RosterSnapshot;
+import org.optaweb.employeerostering.service.shift.ShiftRepository;
+import org.optaweb.employeerostering.service.solver.ShiftProblemFactChange;
+import org.optaweb.employeerostering.service.solver.SolverManagerProperties;
+import org.optaweb.employeerostering.service.solver.SolverStatus;
 import org.optaweb.employeerostering.service.solver.WannabeSolverManager;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 @RunWith(SpringRunner.class)
@@ -45,7 +70,7 @@ import static org.junit.Assert.assertTrue;
 public class SolverManagerTest {
 
     @Autowired
-    private ThreadPoolTaskExecutor taskExecutor;
+    private SolverManagerProperties solverManagerProperties;
 
     @Autowired
     private RosterService rosterService;
@@ -53,12 +78,24 @@ public class SolverManagerTest {
     @Autowired
     private RosterGenerator rosterGenerator;
 
+    @Autowired
+    private ContractRepository contractRepository;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private EmployeeAvailabilityRepository employeeAvailabilityRepository;
+
+    @Autowired
+    private ShiftRepository shiftRepository;
+
     @PersistenceContext
     private EntityManager entityManager;
 
     @Test
     public void testSolverManager() throws InterruptedException {
-        WannabeSolverManager solverManager = new WannabeSolverManager(taskExecutor, rosterService);
+        WannabeSolverManager solverManager = new WannabeSolverManager(solverManagerProperties, rosterService);
         solverManager.setUpSolverFactory();
 
         Roster roster = rosterGenerator.generateRoster(10, 7);
@@ -66,6 +103,7 @@ public class SolverManagerTest {
         CountDownLatch solverEndedLatch = solverManager.solve(roster.getTenantId());
 
         solverEndedLatch.await();
+        assertEquals(SolverStatus.TERMINATED, solverManager.getSolverStatus(roster.getTenantId()));
         ScoreDirector<Roster> scoreDirector = solverManager.getScoreDirector();
         scoreDirector.setWorkingSolution(roster);
         roster.setScore((HardMediumSoftLongScore) scoreDirector.calculateScore());
@@ -75,4 +113,218 @@ public class SolverManagerTest {
         assertFalse(roster.getShiftList().isEmpty());
         assertTrue(roster.getShiftList().stream().anyMatch(s -> s.getEmployee() != null));
     }
+
+    @Test
+    public void testRefreshShiftsOfRoster() {
+        Integer tenantId = rosterGenerator.generateRoster(10, 7).getTenantId();
+        Roster roster = rosterService.buildRoster(tenantId);
+        HardMediumSoftLongScore score = roster.getScore();
+        int shiftCount = roster.getShiftList().size();
+        Shift shift = roster.getShiftList().get(0);
+
+        Roster refreshedRoster = rosterService.refreshShiftsOfRoster(roster, Collections.singleton(shift.getId()));
+        assertNotNull(refreshedRoster);
+        assertEquals(shiftCount, refreshedRoster.getShiftList().size());
+        assertEquals(score, refreshedRoster.getScore());
+        Shift refreshedShift = findShift(refreshedRoster, shift.getId());
+        assertNotSame(shift, refreshedShift);
+        // The refreshed shift refers to the roster's own problem facts
+        assertSame(shift.getSpot(), refreshedShift.getSpot());
+    }
+
+    @Test
+    public void testUpdateEmployeesOfShifts() {
+        Integer tenantId = rosterGenerator.generateRoster(10, 7).getTenantId();
+        Roster roster = rosterService.buildRoster(tenantId);
+        Shift shift = roster.getShiftList().get(0);
+        Employee employee = roster.getEmployeeList().get(0);
+
+        rosterService.updateEmployeesOfShifts(tenantId, Collections.singletonMap(shift.getId(), employee.getId()));
+        assertEquals(employee, findShift(rosterService.buildRoster(tenantId), shift.getId()).getEmployee());
+        rosterService.updateEmployeesOfShifts(tenantId, Collections.singletonMap(shift.getId(), null));
+        assertNull(findShift(rosterService.buildRoster(tenantId), shift.getId()).getEmployee());
+    }
+
+    @Test
+    public void testRosterSnapshot() {
+        Integer tenantId = rosterGenerator.generateRoster(10, 7).getTenantId();
+        RosterSnapshot rosterSnapshot = rosterService.getRosterSnapshot(tenantId);
+        assertNotNull(rosterSnapshot.getScore());
+        assertFalse(rosterSnapshot.getIndictmentMap().isEmpty());
+        assertSame(rosterSnapshot, rosterService.getRosterSnapshot(tenantId));
+
+        // The live roster applies the change incrementally and gets the same score as a full calculation
+        Roster roster = rosterService.buildRoster(tenantId);
+        Shift shift = roster.getShiftList().get(0);
+        shift.setEmployee(roster.getEmployeeList().get(0));
+        rosterService.updateRosterSnapshot(tenantId, new ShiftProblemFactChange(shift.getId(), shift));
+        RosterSnapshot updatedRosterSnapshot = rosterService.getRosterSnapshot(tenantId);
+        assertNotSame(rosterSnapshot, updatedRosterSnapshot);
+        WannabeSolverManager solverManager = new WannabeSolverManager(solverManagerProperties, rosterService);
+        solverManager.setUpSolverFactory();
+        try (ScoreDirector<Roster> scoreDirector = solverManager.getScoreDirector()) {
+            scoreDirector.setWorkingSolution(roster);
+            assertEquals(scoreDirector.calculateScore(), updatedRosterSnapshot.getScore());
+        }
+
+        // Reloaded from the database, which doesn't have the change
+        rosterService.invalidateRosterSnapshot(tenantId);
+        assertEquals(rosterService.buildRoster(tenantId).getScore(),
+                     rosterService.getRosterSnapshot(tenantId).getScore());
+    }
+
+    @Test
+    public void testRosterSnapshotIsNotModifiedByLaterChanges() {
+        Integer tenantId = rosterGenerator.generateRoster(10, 7).getTenantId();
+        RosterSnapshot oldRosterSnapshot = rosterService.getRosterSnapshot(tenantId);
+        Map<Object, Score> oldIndictmentScoreMap = oldRosterSnapshot.getIndictmentMap().entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().getScore()));
+        Map<Object, Integer> oldConstraintMatchCountMap = oldRosterSnapshot.getIndictmentMap().entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().getConstraintMatchCount()));
+
+        // Rescores the same live score director
+        Roster roster = rosterService.buildRoster(tenantId);
+        for (Shift shift : roster.getShiftList()) {
+            shift.setEmployee(roster.getEmployeeList().get(0));
+            rosterService.updateRosterSnapshot(tenantId, new ShiftProblemFactChange(shift.getId(), shift));
+        }
+        RosterSnapshot newRosterSnapshot = rosterService.getRosterSnapshot(tenantId);
+        assertNotEquals(oldRosterSnapshot.getScore(), newRosterSnapshot.getScore());
+
+        assertEquals(oldIndictmentScoreMap.keySet(), oldRosterSnapshot.getIndictmentMap().keySet());
+        oldRosterSnapshot.getIndictmentMap().forEach((justification, indictment) -> {
+            assertEquals(oldIndictmentScoreMap.get(justification), indictment.getScore());
+            assertEquals(oldConstraintMatchCountMap.get(justification), (Integer) indictment.getConstraintMatchCount());
+        });
+        rosterService.invalidateRosterSnapshot(tenantId);
+    }
+
+    @Test
+    public void testRosterSnapshotOfDateWindow() {
+        Integer tenantId = rosterGenerator.generateRoster(10, 28).getTenantId();
+        Roster roster = rosterService.buildRoster(tenantId);
+        ZoneId zoneId = roster.getRosterState().getTimeZone();
+        LocalDate startDate = roster.getRosterState().getFirstDraftDate();
+        LocalDate endDate = startDate.plusDays(7);
+        Map<Object, Indictment> indictmentMap = rosterService.getRosterSnapshot(tenantId).getIndictmentMap();
+
+        // The shifts in the window have the same indictments as when the whole roster is scored
+        Map<Object, Indictment> windowIndictmentMap = rosterService.getRosterSnapshot(tenantId, startDate, endDate)
+                .getIndictmentMap();
+        List<Shift> windowShiftList = roster.getShiftList().stream()
+                .filter(shift -> {
+                    LocalDate shiftDate = shift.getStartDateTime().atZoneSameInstant(zoneId).toLocalDate();
+                    return !shiftDate.isBefore(startDate) && shiftDate.isBefore(endDate);
+                })
+                .collect(Collectors.toList());
+        assertFalse(windowShiftList.isEmpty());
+        for (Shift shift : windowShiftList) {
+            assertEquals(getIndictmentScore(indictmentMap, shift), getIndictmentScore(windowIndictmentMap, shift));
+        }
+    }
+
+    @Test
+    public void testRosterViewScoreIsSameWithAndWithoutLiveRoster() {
+        Roster roster = rosterService.buildRoster(rosterGenerator.generateRoster(10, 28).getTenantId());
+        Integer tenantId = roster.getTenantId();
+        LocalDate startDate = roster.getRosterState().getFirstDraftDate();
+        String startDateString = startDate.toString();
+        String endDateString = startDate.plusDays(7).toString();
+
+        // Without a live roster, only the window and its margin are scored
+        rosterService.invalidateRosterSnapshot(tenantId);
+        HardMediumSoftLongScore windowScore = rosterService.getShiftRosterViewFor(
+                tenantId, startDateString, endDateString, roster.getSpotList()).getScore();
+        assertNotNull(windowScore);
+
+        // Keeps a live roster of the whole tenant for the next views
+        rosterService.getRosterSnapshot(tenantId);
+        assertEquals(windowScore, rosterService.getShiftRosterViewFor(
+                tenantId, startDateString, endDateString, roster.getSpotList()).getScore());
+        assertEquals(windowScore, rosterService.getAvailabilityRosterViewFor(
+                tenantId, startDateString, endDateString, roster.getEmployeeList()).getScore());
+        rosterService.invalidateRosterSnapshot(tenantId);
+    }
+
+    @Test
+    public void testRosterSnapshotOfDateWindowWithYearlyContractMaximum() {
+        Roster roster = rosterGenerator.generateRoster(10, 28);
+        Integer tenantId = roster.getTenantId();
+        Contract contract = roster.getEmployeeList().get(0).getContract();
+        contract.setMaximumMinutesPerYear(100 * 60);
+        contractRepository.save(contract);
+        rosterService.invalidateRosterSnapshot(tenantId);
+
+        // The margin would be the whole year, so the whole roster is scored instead
+        LocalDate startDate = roster.getRosterState().getFirstDraftDate();
+        RosterSnapshot rosterSnapshot = rosterService.getRosterSnapshot(tenantId, startDate, startDate.plusDays(7));
+        assertEquals(rosterService.buildRoster(tenantId).getScore(), rosterSnapshot.getScore());
+        rosterService.invalidateRosterSnapshot(tenantId);
+    }
+
+    @Test
+    public void testBuildRosterLoadsSameShiftsAndAvailabilitiesAsRepositories() {
+        Integer tenantId = rosterGenerator.generateRoster(10, 7).getTenantId();
+        Employee employee = employeeRepository.findAllByTenantId(tenantId).get(0);
+        List<Shift> persistedShiftList = shiftRepository.findAllByTenantId(tenantId);
+        Shift pinnedShift = persistedShiftList.get(0);
+        pinnedShift.setEmployee(employee);
+        pinnedShift.setPinnedByUser(true);
+        Shift rotationShift = persistedShiftList.get(1);
+        rotationShift.setRotationEmployee(employee);
+        Shift unassignedShift = persistedShiftList.get(2);
+        unassignedShift.setEmployee(null);
+        shiftRepository.saveAll(Arrays.asList(pinnedShift, rotationShift, unassignedShift));
+
+        // The JDBC loader builds the same solver domain objects as the repositories and inTimeZone() used to
+        Roster roster = rosterService.buildRoster(tenantId);
+        ZoneId zoneId = roster.getRosterState().getTimeZone();
+        List<Shift> expectedShiftList = shiftRepository.findAllByTenantId(tenantId).stream()
+                .map(shift -> shift.inTimeZone(zoneId))
+                .collect(Collectors.toList());
+        List<EmployeeAvailability> expectedEmployeeAvailabilityList =
+                employeeAvailabilityRepository.findAllByTenantId(tenantId).stream()
+                        .map(employeeAvailability -> employeeAvailability.inTimeZone(zoneId))
+                        .collect(Collectors.toList());
+        assertTrue(expectedShiftList.stream().anyMatch(Shift::isPinnedByUser));
+        assertTrue(expectedShiftList.stream().anyMatch(shift -> shift.getEmployee() == null));
+        assertTrue(expectedShiftList.stream().anyMatch(shift -> shift.getRotationEmployee() != null));
+        assertFalse(expectedEmployeeAvailabilityList.isEmpty());
+
+        assertEquals(getShiftIdToFieldsMap(expectedShiftList), getShiftIdToFieldsMap(roster.getShiftList()));
+        assertEquals(getEmployeeAvailabilityIdToFieldsMap(expectedEmployeeAvailabilityList),
+                     getEmployeeAvailabilityIdToFieldsMap(roster.getEmployeeAvailabilityList()));
+    }
+
+    private static Map<Long, List<Object>> getShiftIdToFieldsMap(List<Shift> shiftList) {
+        return shiftList.stream()
+                .collect(Collectors.toMap(Shift::getId, shift -> Arrays.asList(
+                        shift.getVersion(), shift.getSpot().getId(), getId(shift.getRotationEmployee()),
+                        getId(shift.getEmployee()), shift.getStartDateTime(), shift.getEndDateTime(),
+                        shift.isPinnedByUser())));
+    }
+
+    private static Map<Long, List<Object>> getEmployeeAvailabilityIdToFieldsMap(
+            List<EmployeeAvailability> employeeAvailabilityList) {
+        return employeeAvailabilityList.stream()
+                .collect(Collectors.toMap(EmployeeAvailability::getId, employeeAvailability -> Arrays.asList(
+                        employeeAvailability.getVersion(), employeeAvailability.getEmployee().getId(),
+                        employeeAvailability.getStartDateTime(), employeeAvailability.getEndDateTime(),
+                        employeeAvailability.getState())));
+    }
+
+    private static Long getId(Employee employee) {
+        return (employee == null) ? null : employee.getId();
+    }
+
+    private static Score getIndictmentScore(Map<Object, Indictment> indictmentMap, Shift shift) {
+        Indictment indictment = indictmentMap.get(shift);
+        return (indictment == null) ? null : indictment.getScore();
+    }
+
+    private static Shift findShift(Roster roster, Long shiftId) {
+        return roster.getShiftList().stream()
+                .filter(s -> s.getId().equals(shiftId))
+                .findFirst().orElseThrow(IllegalStateException::new);
+    }
 }
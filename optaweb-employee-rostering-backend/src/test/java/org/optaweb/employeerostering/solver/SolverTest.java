@@ -28,7 +28,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -36,10 +38,18 @@ import javax.persistence.EntityManager;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.kie.api.KieServices;
+import org.optaplanner.core.api.score.Score;
 import org.optaplanner.core.api.score.buildin.hardmediumsoft.HardMediumSoftScore;
+import org.optaplanner.core.api.score.constraint.ConstraintMatchTotal;
+import org.optaplanner.core.api.score.constraint.Indictment;
 import org.optaplanner.core.api.solver.Solver;
 import org.optaplanner.core.api.solver.SolverFactory;
+import org.optaplanner.core.config.score.director.ScoreDirectorFactoryConfig;
+import org.optaplanner.core.config.solver.EnvironmentMode;
+import org.optaplanner.core.config.solver.SolverConfig;
 import org.optaplanner.core.config.solver.termination.TerminationConfig;
+import org.optaplanner.core.impl.score.director.ScoreDirector;
 import org.optaplanner.test.impl.score.buildin.hardmediumsoftlong.HardMediumSoftLongScoreVerifier;
 import org.optaweb.employeerostering.domain.common.AbstractPersistable;
 import org.optaweb.employeerostering.domain.contract.Contract;
@@ -49,20 +59,29 @@ import org.optaweb.employeerostering.domain.employee.EmployeeAvailabilityState;
 import org.optaweb.employeerostering.domain.roster.Roster;
 import org.optaweb.employeerostering.domain.roster.RosterState;
 import org.optaweb.employeerostering.domain.shift.Shift;
+import org.optaweb.employeerostering.domain.shift.view.ShiftView;
 import org.optaweb.employeerostering.domain.skill.Skill;
 import org.optaweb.employeerostering.domain.spot.Spot;
 import org.optaweb.employeerostering.domain.tenant.RosterConstraintConfiguration;
 import org.optaweb.employeerostering.domain.tenant.Tenant;
+import org.optaweb.employeerostering.domain.violation.ContractMinutesViolation;
+import org.optaweb.employeerostering.service.common.IndictmentUtils;
 import org.optaweb.employeerostering.service.roster.RosterGenerator;
+import org.optaweb.employeerostering.service.solver.EmployeeAvailabilityProblemFactChange;
+import org.optaweb.employeerostering.service.solver.ShiftProblemFactChange;
+import org.optaweb.employeerostering.service.solver.SolverStatus;
 import org.optaweb.employeerostering.service.solver.WannabeSolverManager;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import static java.util.stream.Collectors.toMap;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
@@ -93,13 +112,32 @@ public class SolverTest {
         return restTemplate.postForEntity(rosterPathURI + "terminate", null, Void.class, tenantId);
     }
 
+    private ResponseEntity<SolverStatus> getSolverStatus(Integer tenantId) {
+        return restTemplate.getForEntity(rosterPathURI + "solverStatus", SolverStatus.class, tenantId);
+    }
+
     private SolverFactory<Roster> getSolverFactory() {
-        SolverFactory<Roster> solverFactory = SolverFactory.createFromXmlResource(WannabeSolverManager.SOLVER_CONFIG);
+        return getSolverFactory(WannabeSolverManager.SOLVER_CONFIG);
+    }
+
+    private SolverFactory<Roster> getSolverFactory(String solverConfig) {
+        SolverFactory<Roster> solverFactory = SolverFactory.createFromXmlResource(solverConfig);
         solverFactory.getSolverConfig().setTerminationConfig(new TerminationConfig()
                                                                      .withScoreCalculationCountLimit(10000L));
         return solverFactory;
     }
 
+    // The executable model that the kie-maven-plugin compiled from the DRL
+    private SolverFactory<Roster> getPrecompiledSolverFactory() {
+        SolverFactory<Roster> solverFactory = SolverFactory.createFromKieContainerXmlResource(
+                KieServices.get().getKieClasspathContainer(), WannabeSolverManager.SOLVER_CONFIG);
+        ScoreDirectorFactoryConfig scoreDirectorFactoryConfig =
+                solverFactory.getSolverConfig().getScoreDirectorFactoryConfig();
+        scoreDirectorFactoryConfig.setScoreDrlList(null);
+        scoreDirectorFactoryConfig.setKsessionName(WannabeSolverManager.KIE_SESSION_NAME);
+        return solverFactory;
+    }
+
     private HardMediumSoftLongScoreVerifier<Roster> getScoreVerifier() {
         return new HardMediumSoftLongScoreVerifier<Roster>(getSolverFactory());
     }
@@ -113,6 +151,13 @@ public class SolverTest {
         }
     }
 
+    @Test
+    public void testSolverStatusOfIdleTenant() {
+        ResponseEntity<SolverStatus> solverStatusResponse = getSolverStatus(TENANT_ID);
+        assertThat(solverStatusResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(solverStatusResponse.getBody()).isEqualTo(SolverStatus.TERMINATED);
+    }
+
     // A solver "integration" test that verify that our constraints can create a feasible
     // solution on our demo data set
     @Test(timeout = 600000)
@@ -130,6 +175,192 @@ public class SolverTest {
         assertTrue(roster.getShiftList().stream().anyMatch(s -> s.getEmployee() != null));
     }
     
+    // Verifies that the constraint streams, the incremental score calculator and the precompiled DRL
+    // give the same score and constraint matches as the DRL on our demo data set
+    @Test(timeout = 600000)
+    public void testScoreDirectorsMatchDrl() {
+        Solver<Roster> solver = getSolverFactory().buildSolver();
+
+        RosterGenerator rosterGenerator = buildRosterGenerator();
+        Roster roster = solver.solve(rosterGenerator.generateRoster(10, 7));
+
+        // Force some violations of the hard constraints
+        List<Employee> employeeList = roster.getEmployeeList();
+        List<Shift> shiftList = roster.getShiftList();
+        for (int i = 0; i < shiftList.size(); i += 3) {
+            shiftList.get(i).setEmployee(employeeList.get(i % employeeList.size()));
+        }
+
+        assertSameScoreAndConstraintMatchTotals(
+                roster, getSolverFactory(WannabeSolverManager.CONSTRAINT_STREAMS_SOLVER_CONFIG));
+        assertSameScoreAndConstraintMatchTotals(
+                roster, getSolverFactory(WannabeSolverManager.INCREMENTAL_SOLVER_CONFIG));
+        assertSameScoreAndConstraintMatchTotals(roster, getPrecompiledSolverFactory());
+    }
+
+    // Verifies after every move that the incremental score calculator gives the same score as the DRL
+    @Test(timeout = 600000)
+    public void testIncrementalScoreCalculatorFullAssert() {
+        SolverFactory<Roster> solverFactory = getSolverFactory(WannabeSolverManager.INCREMENTAL_SOLVER_CONFIG);
+        SolverConfig solverConfig = solverFactory.getSolverConfig();
+        solverConfig.setEnvironmentMode(EnvironmentMode.FULL_ASSERT);
+        ScoreDirectorFactoryConfig assertionScoreDirectorFactoryConfig = new ScoreDirectorFactoryConfig();
+        assertionScoreDirectorFactoryConfig.setScoreDrlList(Collections.singletonList(
+                "org/optaweb/employeerostering/service/solver/employeeRosteringScoreRules.drl"));
+        solverConfig.getScoreDirectorFactoryConfig()
+                .setAssertionScoreDirectorFactory(assertionScoreDirectorFactoryConfig);
+        solverConfig.setTerminationConfig(new TerminationConfig().withScoreCalculationCountLimit(1000L));
+        Solver<Roster> solver = solverFactory.buildSolver();
+
+        RosterGenerator rosterGenerator = buildRosterGenerator();
+        Roster roster = solver.solve(rosterGenerator.generateRoster(10, 7));
+        assertNotNull(roster.getScore());
+    }
+
+    // Removing a shift and an availability and adding them back through problem fact changes restores the score
+    @Test(timeout = 600000)
+    public void testProblemFactChanges() {
+        Roster roster = buildRosterGenerator().generateRoster(10, 7);
+        try (ScoreDirector<Roster> scoreDirector = buildScoreDirector(WannabeSolverManager.SOLVER_CONFIG)) {
+            scoreDirector.setWorkingSolution(roster);
+            Score score = scoreDirector.calculateScore();
+
+            Shift shift = roster.getShiftList().get(0);
+            int shiftCount = roster.getShiftList().size();
+            new ShiftProblemFactChange(shift.getId(), null).doChange(scoreDirector);
+            assertThat(roster.getShiftList()).hasSize(shiftCount - 1);
+            new ShiftProblemFactChange(shift.getId(), shift).doChange(scoreDirector);
+            assertThat(roster.getShiftList()).hasSize(shiftCount);
+            assertThat(scoreDirector.calculateScore()).isEqualTo(score);
+
+            EmployeeAvailability employeeAvailability = roster.getEmployeeAvailabilityList().get(0);
+            int employeeAvailabilityCount = roster.getEmployeeAvailabilityList().size();
+            new EmployeeAvailabilityProblemFactChange(employeeAvailability.getId(), null).doChange(scoreDirector);
+            assertThat(roster.getEmployeeAvailabilityList()).hasSize(employeeAvailabilityCount - 1);
+            new EmployeeAvailabilityProblemFactChange(employeeAvailability.getId(), employeeAvailability)
+                    .doChange(scoreDirector);
+            assertThat(roster.getEmployeeAvailabilityList()).hasSize(employeeAvailabilityCount);
+            assertThat(scoreDirector.calculateScore()).isEqualTo(score);
+        }
+    }
+
+    // Every score director builds the justification lists of its constraint matches differently,
+    // but each kind of violation must end up in the same list of the shift view
+    @Test(timeout = 600000)
+    public void testShiftViewWithIndictmentOfEveryScoreDirector() {
+        AtomicLong idGenerator = new AtomicLong(1L);
+
+        Skill skill = new Skill(TENANT_ID, "Skill A");
+        skill.setId(idGenerator.getAndIncrement());
+        Spot spot = new Spot(TENANT_ID, "Spot A", new HashSet<>(Collections.singletonList(skill)));
+        spot.setId(idGenerator.getAndIncrement());
+
+        Contract contract = new Contract(TENANT_ID, "Max 1 Hour Per Day Contract", 60, null, null, null);
+        contract.setId(idGenerator.getAndIncrement());
+        Employee employee = new Employee(TENANT_ID, "Bill", contract, Collections.emptySet());
+        employee.setId(idGenerator.getAndIncrement());
+        Employee rotationEmployee = new Employee(TENANT_ID, "Anna", contract, Collections.emptySet());
+        rotationEmployee.setId(idGenerator.getAndIncrement());
+
+        OffsetDateTime firstDateTime = OffsetDateTime.of(START_DATE, LocalTime.of(9, 0), ZoneOffset.UTC);
+        Shift shift = new Shift(TENANT_ID, spot, firstDateTime, firstDateTime.plusHours(8), rotationEmployee);
+        shift.setId(idGenerator.getAndIncrement());
+        shift.setEmployee(employee);
+        Shift laterShift = new Shift(TENANT_ID, spot, firstDateTime.plusHours(9), firstDateTime.plusHours(12));
+        laterShift.setId(idGenerator.getAndIncrement());
+        laterShift.setEmployee(employee);
+        Shift unassignedShift = new Shift(TENANT_ID, spot, firstDateTime.plusDays(2),
+                                          firstDateTime.plusDays(2).plusHours(8));
+        unassignedShift.setId(idGenerator.getAndIncrement());
+
+        List<EmployeeAvailability> employeeAvailabilityList = new ArrayList<>();
+        for (EmployeeAvailabilityState state : EmployeeAvailabilityState.values()) {
+            EmployeeAvailability employeeAvailability = new EmployeeAvailability(TENANT_ID, employee, firstDateTime,
+                                                                                 firstDateTime.plusHours(8));
+            employeeAvailability.setId(idGenerator.getAndIncrement());
+            employeeAvailability.setState(state);
+            employeeAvailabilityList.add(employeeAvailability);
+        }
+
+        Roster roster = new Roster();
+        roster.setTenantId(TENANT_ID);
+        roster.setRosterState(getRosterState(idGenerator));
+        roster.setSpotList(Collections.singletonList(spot));
+        roster.setEmployeeList(Arrays.asList(employee, rotationEmployee));
+        roster.setSkillList(Collections.singletonList(skill));
+        roster.setRosterConstraintConfiguration(getRosterConstraintConfiguration(idGenerator));
+        roster.setEmployeeAvailabilityList(employeeAvailabilityList);
+        roster.setShiftList(Arrays.asList(shift, laterShift, unassignedShift));
+
+        Map<String, SolverFactory<Roster>> nameToSolverFactoryMap = new LinkedHashMap<>();
+        nameToSolverFactoryMap.put("DRL", getSolverFactory(WannabeSolverManager.SOLVER_CONFIG));
+        nameToSolverFactoryMap.put("Precompiled DRL", getPrecompiledSolverFactory());
+        nameToSolverFactoryMap.put("Constraint streams",
+                                   getSolverFactory(WannabeSolverManager.CONSTRAINT_STREAMS_SOLVER_CONFIG));
+        nameToSolverFactoryMap.put("Incremental", getSolverFactory(WannabeSolverManager.INCREMENTAL_SOLVER_CONFIG));
+        IndictmentUtils indictmentUtils = new IndictmentUtils(null);
+        nameToSolverFactoryMap.forEach((name, solverFactory) -> {
+            try (ScoreDirector<Roster> scoreDirector = solverFactory.buildSolver().getScoreDirectorFactory()
+                    .buildScoreDirector()) {
+                scoreDirector.setWorkingSolution(roster);
+                scoreDirector.calculateScore();
+                Map<Object, Indictment> indictmentMap = scoreDirector.getIndictmentMap();
+
+                ShiftView shiftView = indictmentUtils.getShiftViewWithIndictment(ZoneOffset.UTC, shift,
+                                                                                 indictmentMap.get(shift));
+                assertThat(shiftView.getRequiredSkillViolationList()).as(name).hasSize(1);
+                assertThat(shiftView.getUnavailableEmployeeViolationList()).as(name).hasSize(1);
+                // Both on the same day and within 10 hours of each other
+                assertThat(shiftView.getShiftEmployeeConflictList()).as(name).isNotEmpty();
+                assertThat(shiftView.getDesiredTimeslotForEmployeeRewardList()).as(name).hasSize(1);
+                assertThat(shiftView.getUndesiredTimeslotForEmployeePenaltyList()).as(name).hasSize(1);
+                assertThat(shiftView.getRotationViolationPenaltyList()).as(name).hasSize(1);
+                assertThat(shiftView.getUnassignedShiftPenaltyList()).as(name).isEmpty();
+                assertThat(shiftView.getContractMinutesViolationPenaltyList()).as(name)
+                        .extracting(ContractMinutesViolation::getEmployee, ContractMinutesViolation::getType,
+                                    ContractMinutesViolation::getMinutesWorked)
+                        .containsExactly(tuple(employee, ContractMinutesViolation.Type.DAY, 11L * 60L));
+
+                ShiftView unassignedShiftView = indictmentUtils.getShiftViewWithIndictment(
+                        ZoneOffset.UTC, unassignedShift, indictmentMap.get(unassignedShift));
+                assertThat(unassignedShiftView.getUnassignedShiftPenaltyList()).as(name).hasSize(1);
+                assertThat(unassignedShiftView.getRequiredSkillViolationList()).as(name).isEmpty();
+                assertThat(unassignedShiftView.getShiftEmployeeConflictList()).as(name).isEmpty();
+                assertThat(unassignedShiftView.getContractMinutesViolationPenaltyList()).as(name).isEmpty();
+            }
+        });
+    }
+
+    private void assertSameScoreAndConstraintMatchTotals(Roster roster, SolverFactory<Roster> solverFactory) {
+        try (ScoreDirector<Roster> expectedScoreDirector = buildScoreDirector(WannabeSolverManager.SOLVER_CONFIG);
+                ScoreDirector<Roster> actualScoreDirector = solverFactory.buildSolver().getScoreDirectorFactory()
+                        .buildScoreDirector()) {
+            expectedScoreDirector.setWorkingSolution(roster);
+            actualScoreDirector.setWorkingSolution(roster);
+            assertThat(actualScoreDirector.calculateScore()).isEqualTo(expectedScoreDirector.calculateScore());
+            assertThat(getConstraintIdToScoreMap(actualScoreDirector))
+                    .isEqualTo(getConstraintIdToScoreMap(expectedScoreDirector));
+            assertThat(getConstraintIdToMatchCountMap(actualScoreDirector))
+                    .isEqualTo(getConstraintIdToMatchCountMap(expectedScoreDirector));
+        }
+    }
+
+    private ScoreDirector<Roster> buildScoreDirector(String solverConfig) {
+        return getSolverFactory(solverConfig).buildSolver().getScoreDirectorFactory().buildScoreDirector();
+    }
+
+    private static Map<String, Score> getConstraintIdToScoreMap(ScoreDirector<Roster> scoreDirector) {
+        return scoreDirector.getConstraintMatchTotalMap().values().stream()
+                .filter(constraintMatchTotal -> constraintMatchTotal.getConstraintMatchCount() > 0)
+                .collect(toMap(ConstraintMatchTotal::getConstraintId, ConstraintMatchTotal::getScore));
+    }
+
+    private static Map<String, Integer> getConstraintIdToMatchCountMap(ScoreDirector<Roster> scoreDirector) {
+        return scoreDirector.getConstraintMatchTotalMap().values().stream()
+                .filter(constraintMatchTotal -> constraintMatchTotal.getConstraintMatchCount() > 0)
+                .collect(toMap(ConstraintMatchTotal::getConstraintId, ConstraintMatchTotal::getConstraintMatchCount));
+    }
+
     // A solver "integration" test that verify it moves only draft shifts
     @Test(timeout = 600000)
     public void testMoveOnlyDraftShifts() {
@@ -257,6 +488,16 @@ public class SolverTest {
 
     @Test(timeout = 600000)
     public void testRequiredSkillForShiftConstraint() {
+        testRequiredSkillForShiftConstraint(false);
+    }
+
+    // Same as above, but compares the skill bitsets that the solver's rosters are indexed with
+    @Test(timeout = 600000)
+    public void testRequiredSkillForShiftConstraintWithIndexedSkills() {
+        testRequiredSkillForShiftConstraint(true);
+    }
+
+    private void testRequiredSkillForShiftConstraint(boolean indexSkills) {
         HardMediumSoftLongScoreVerifier<Roster> scoreVerifier = getScoreVerifier();
 
         AtomicLong idGenerator = new AtomicLong(1L);
@@ -293,19 +534,31 @@ public class SolverTest {
         roster.setRosterConstraintConfiguration(rosterConstraintConfiguration);
         roster.setEmployeeAvailabilityList(Collections.emptyList());
         roster.setShiftList(Collections.singletonList(shift));
+        if (indexSkills) {
+            roster.indexSkills();
+        }
 
         final Constraints constraint = Constraints.REQUIRED_SKILL_FOR_A_SHIFT;
         constraint.verifyNumOfInstances(scoreVerifier, roster, 1);
 
         employeeA.setSkillProficiencySet(new HashSet<>(Collections.singleton(skillA)));
+        if (indexSkills) {
+            roster.indexSkills();
+        }
 
         constraint.verifyNumOfInstances(scoreVerifier, roster, 1);
 
         employeeA.setSkillProficiencySet(new HashSet<>(Collections.singleton(skillB)));
+        if (indexSkills) {
+            roster.indexSkills();
+        }
 
         constraint.verifyNumOfInstances(scoreVerifier, roster, 1);
 
         employeeA.setSkillProficiencySet(new HashSet<>(Arrays.asList(skillA, skillB)));
+        if (indexSkills) {
+            roster.indexSkills();
+        }
 
         constraint.verifyNumOfInstances(scoreVerifier, roster, 0);
     }